@@ -0,0 +1,206 @@
+package io.github.msyysoft.java.utiltools.cache4j.benchmark;
+
+import io.github.msyysoft.java.utiltools.cache4j.core.ICache;
+import io.github.msyysoft.java.utiltools.cache4j.core.impl.CacheConfig;
+import io.github.msyysoft.java.utiltools.cache4j.core.impl.FifoCache;
+import io.github.msyysoft.java.utiltools.cache4j.core.impl.LruCache;
+import io.github.msyysoft.java.utiltools.cache4j.core.impl.TwoQueuesCache;
+import io.github.msyysoft.java.utiltools.cache4j.factory.impl.CacheNodeFactory;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 缓存淘汰算法吞吐量基准测试
+ * 读操作未命中时写入（cache-aside），写操作直接覆盖；key按Zipfian或均匀分布预先生成，测量期间不产生随机数和装箱对象。
+ * 命中和未命中次数通过AuxCounters输出，由CacheBenchmarkRunner汇总为命中率。
+ * @author 杨元
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CacheBenchmark {
+
+    /**
+     * 缓存容量
+     */
+    static final int CAPACITY = 1 << 12;
+
+    /**
+     * key空间，容量的4倍
+     */
+    static final int KEY_SPACE = CAPACITY << 2;
+
+    /**
+     * 每个线程预先生成的访问序列长度，必须是2的幂；64线程时也不会占用过多堆内存
+     */
+    static final int SAMPLE_SIZE = 1 << 16;
+
+    /**
+     * Zipfian分布参数，与YCSB一致
+     */
+    static final double ZIPF_EXPONENT = 0.99d;
+
+    @Param({"FIFO", "LRU", "TWO_QUEUES"})
+    public String policy;
+
+    @Param({"100", "90", "50"})
+    public int readPercent;
+
+    @Param({"ZIPFIAN", "UNIFORM"})
+    public String distribution;
+
+    ICache<Integer, Integer> cache;
+
+    /**
+     * 预先装箱的key
+     */
+    Integer[] keys;
+
+    /**
+     * 为每个线程分配不同的随机种子
+     */
+    final AtomicInteger seed = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        CacheConfig config = CacheConfig.custom().setMaxElement(CAPACITY);
+        if("FIFO".equals(this.policy)){
+            this.cache = new FifoCache<Integer, Integer>(config, new CacheNodeFactory<Integer, Integer>());
+        }else if("LRU".equals(this.policy)){
+            this.cache = new LruCache<Integer, Integer>(config, new CacheNodeFactory<Integer, Integer>());
+        }else if("TWO_QUEUES".equals(this.policy)){
+            this.cache = new TwoQueuesCache<Integer, Integer>(config, new CacheNodeFactory<Integer, Integer>());
+        }else{
+            throw new IllegalArgumentException("unknown policy: " + this.policy);
+        }
+
+        this.keys = new Integer[KEY_SPACE];
+        for(int i = 0; i < KEY_SPACE; i++){
+            this.keys[i] = i;
+        }
+
+        //按同一分布预热，使测量开始时缓存已满
+        int[] warmup = generate(this.distribution, CAPACITY * 4, new Random(-1));
+        for(int index : warmup){
+            this.cache.put(this.keys[index], this.keys[index]);
+        }
+    }
+
+    @Benchmark
+    public Integer access(ThreadState state, HitCounters counters) {
+        int i = state.position++ & (SAMPLE_SIZE - 1);
+        Integer key = this.keys[state.indexes[i]];
+
+        if(state.writes[i]){
+            this.cache.put(key, key);
+            return key;
+        }
+
+        Integer value = this.cache.get(key);
+        if(value != null){
+            counters.hits++;
+            return value;
+        }
+        counters.misses++;
+        this.cache.put(key, key);
+        return key;
+    }
+
+    /**
+     * 线程私有的访问序列
+     */
+    @State(Scope.Thread)
+    public static class ThreadState {
+
+        int[] indexes;
+
+        boolean[] writes;
+
+        int position;
+
+        @Setup(Level.Trial)
+        public void setup(CacheBenchmark benchmark) {
+            Random random = new Random(benchmark.seed.incrementAndGet());
+            this.indexes = generate(benchmark.distribution, SAMPLE_SIZE, random);
+            this.writes = new boolean[SAMPLE_SIZE];
+            for(int i = 0; i < SAMPLE_SIZE; i++){
+                this.writes[i] = random.nextInt(100) >= benchmark.readPercent;
+            }
+            this.position = random.nextInt(SAMPLE_SIZE);
+        }
+
+    }
+
+    /**
+     * 命中计数，JMH按迭代汇总所有线程的结果
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class HitCounters {
+
+        public long hits;
+
+        public long misses;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.hits = 0;
+            this.misses = 0;
+        }
+
+    }
+
+    /**
+     * 按分布生成key下标序列
+     * @param distribution  ZIPFIAN或UNIFORM
+     * @param size  序列长度
+     * @param random
+     * @return
+     */
+    static int[] generate(String distribution, int size, Random random) {
+        int[] indexes = new int[size];
+        if("UNIFORM".equals(distribution)){
+            for(int i = 0; i < size; i++){
+                indexes[i] = random.nextInt(KEY_SPACE);
+            }
+            return indexes;
+        }
+        if(!"ZIPFIAN".equals(distribution)){
+            throw new IllegalArgumentException("unknown distribution: " + distribution);
+        }
+
+        //累积分布函数，排名为i的key出现概率与1/(i+1)^s成正比
+        double[] cdf = new double[KEY_SPACE];
+        double sum = 0;
+        for(int i = 0; i < KEY_SPACE; i++){
+            sum += 1.0d / Math.pow(i + 1, ZIPF_EXPONENT);
+            cdf[i] = sum;
+        }
+        for(int i = 0; i < size; i++){
+            int rank = Arrays.binarySearch(cdf, random.nextDouble() * sum);
+            indexes[i] = rank >= 0 ? rank : Math.min(-rank - 1, KEY_SPACE - 1);
+        }
+        return indexes;
+    }
+
+}
@@ -0,0 +1,80 @@
+package io.github.msyysoft.java.utiltools.cache4j.benchmark;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基准测试入口
+ * 按1、4、16、64线程依次运行CacheBenchmark的全部参数组合，开启GC分析，最后输出吞吐量、内存分配速率和命中率汇总。
+ * 第一个参数为-jmh时，其余参数直接交给JMH命令行处理。
+ * @author 杨元
+ *
+ */
+public class CacheBenchmarkRunner {
+
+    private static final int[] THREADS = {1, 4, 16, 64};
+
+    public static void main(String[] args) throws Exception {
+        if(args.length > 0 && "-jmh".equals(args[0])){
+            org.openjdk.jmh.Main.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
+        List<RunResult> results = new ArrayList<RunResult>();
+        for(int threads : THREADS){
+            results.addAll(run(threads));
+        }
+        print(results);
+    }
+
+    private static Collection<RunResult> run(int threads) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(CacheBenchmark.class.getName() + ".access")
+                .threads(threads)
+                .addProfiler(GCProfiler.class)
+                .build();
+        return new Runner(options).run();
+    }
+
+    private static void print(List<RunResult> results) {
+        System.out.println();
+        System.out.println(String.format("%-12s %6s %-8s %8s %16s %14s %14s %10s",
+                "policy", "read%", "dist", "threads", "ops/s", "alloc MB/s", "alloc B/op", "hit ratio"));
+        for(RunResult result : results){
+            BenchmarkParams params = result.getParams();
+            Map<String, Result> secondary = result.getSecondaryResults();
+
+            double hits = score(secondary, "hits");
+            double misses = score(secondary, "misses");
+            double hitRatio = hits + misses > 0 ? hits / (hits + misses) : Double.NaN;
+
+            System.out.println(String.format("%-12s %6s %-8s %8d %16.0f %14.1f %14.1f %10.4f",
+                    params.getParam("policy"),
+                    params.getParam("readPercent"),
+                    params.getParam("distribution"),
+                    params.getThreads(),
+                    result.getPrimaryResult().getScore(),
+                    score(secondary, "gc.alloc.rate"),
+                    score(secondary, "gc.alloc.rate.norm"),
+                    hitRatio));
+        }
+    }
+
+    private static double score(Map<String, Result> secondary, String label) {
+        Result result = secondary.get(label);
+        return result != null ? result.getScore() : Double.NaN;
+    }
+
+}
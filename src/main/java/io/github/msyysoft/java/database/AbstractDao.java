@@ -1,19 +1,33 @@
 package io.github.msyysoft.java.database;
 
+import io.github.msyysoft.java.utiltools.cache4j.core.ICache;
+import org.springframework.beans.BeanUtils;
 import org.springframework.jdbc.core.BeanPropertyRowMapper;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.LinkedCaseInsensitiveMap;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 /**
  * Title: 数据库操作通用DAO基类<br>
@@ -26,6 +40,30 @@ public abstract class AbstractDao {
     private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
     private JdbcTemplate jdbcTemplate;
 
+    /**
+     * 查询结果缓存，只缓存SQL配置中声明了cacheTtl的查询，未设置时不缓存
+     * 缓存中保存查询结果的副本，命中时返回新的副本，调用方修改返回结果不会影响缓存
+     */
+    private ICache<String, Object> queryCache;
+
+    /**
+     * 缓存失效次数，查询期间发生过失效时查询结果不放入缓存，避免旧数据覆盖失效
+     */
+    private final AtomicLong queryCacheVersion = new AtomicLong();
+
+    /**
+     * 版本检查与放入缓存、版本递增与清除缓存在此锁内进行，失效不会夹在检查和放入之间
+     */
+    private final Object queryCacheLock = new Object();
+
+    public ICache<String, Object> getQueryCache() {
+        return queryCache;
+    }
+
+    public void setQueryCache(ICache<String, Object> queryCache) {
+        this.queryCache = queryCache;
+    }
+
     /**
      * 获取Spring中的NamedParameterJdbcTemplate对象，通过该对象可以进行JDBC对数据库的操作
      *
@@ -75,8 +113,10 @@ public abstract class AbstractDao {
      * @return List 将结果集每行数据集按列名为key，数据位value装入Map，并将每行数据装入List
      **/
     public List<Map<String, Object>> queryForListByTemplate(String sqlKey, Map<String, Object> paramMap) {
-        String sql = SqlTemplateUtil.getInstance().getSqlString(sqlKey, paramMap);
-        return getNamedParameterJdbcTemplate().queryForList(sql, paramMap);
+        return queryWithCache(sqlKey, "list", paramMap, () -> {
+            String sql = SqlTemplateUtil.getInstance().getSqlString(sqlKey, paramMap);
+            return getNamedParameterJdbcTemplate().queryForList(sql, paramMap);
+        });
     }
 
     /**
@@ -105,8 +145,10 @@ public abstract class AbstractDao {
      * @return List 将结果集每行数据集按列名为key，数据为value装入Map，并将每行数据装入List
      **/
     public List<Map<String, Object>> pagingForListByTemplate(String sqlKey, int pagesize, int pagenum, Map<String, Object> paramMap) {
-        String sql = SqlTemplateUtil.getInstance().getPageSqlString(sqlKey, pagesize, pagenum, paramMap);
-        return getNamedParameterJdbcTemplate().queryForList(sql, paramMap);
+        return queryWithCache(sqlKey, "page:" + pagesize + ":" + pagenum, paramMap, () -> {
+            String sql = SqlTemplateUtil.getInstance().getPageSqlString(sqlKey, pagesize, pagenum, paramMap);
+            return getNamedParameterJdbcTemplate().queryForList(sql, paramMap);
+        });
     }
 
     /**
@@ -127,12 +169,14 @@ public abstract class AbstractDao {
      * @return int 返回SQL查询语句查询结果集数据条数
      **/
     public int recordNumberForListByTemplate(String sqlKey, Map<String, Object> paramMap) {
-        String sql = SqlTemplateUtil.getInstance().getRecordNumberSqlString(sqlKey, paramMap);
-        List<Map<String, Object>> list = getNamedParameterJdbcTemplate().queryForList(sql, paramMap);
-        if (CollectionUtils.isEmpty(list))
-            return 0;
+        return queryWithCache(sqlKey, "count", paramMap, () -> {
+            String sql = SqlTemplateUtil.getInstance().getRecordNumberSqlString(sqlKey, paramMap);
+            List<Map<String, Object>> list = getNamedParameterJdbcTemplate().queryForList(sql, paramMap);
+            if (CollectionUtils.isEmpty(list))
+                return 0;
 
-        return Integer.parseInt(list.get(0).get("num").toString());
+            return Integer.parseInt(list.get(0).get("num").toString());
+        });
     }
 
     /**
@@ -144,7 +188,9 @@ public abstract class AbstractDao {
      **/
     public int updateByTemplate(String sqlKey, Map<String, Object> paramMap) {
         String sql = SqlTemplateUtil.getInstance().getSqlString(sqlKey, paramMap);
-        return getNamedParameterJdbcTemplate().update(sql, new MapSqlParameterSource(paramMap));
+        int i = getNamedParameterJdbcTemplate().update(sql, new MapSqlParameterSource(paramMap));
+        invalidateQueryCache(sqlKey);
+        return i;
     }
 
     /**
@@ -157,7 +203,9 @@ public abstract class AbstractDao {
      **/
     public int[] batchUpdateByTemplate(String sqlKey, Map<String, Object> templMap, Map<String, Object>[] batchValues) {
         String sql = SqlTemplateUtil.getInstance().getSqlString(sqlKey, templMap);
-        return getNamedParameterJdbcTemplate().batchUpdate(sql, batchValues);
+        int[] ii = getNamedParameterJdbcTemplate().batchUpdate(sql, batchValues);
+        invalidateQueryCache(sqlKey);
+        return ii;
     }
 
     /**
@@ -178,7 +226,9 @@ public abstract class AbstractDao {
             batchArgs[i] = new MapSqlParameterSource(batchValues);
             i++;
         }
-        return getNamedParameterJdbcTemplate().batchUpdate(sql, batchArgs);
+        int[] ii = getNamedParameterJdbcTemplate().batchUpdate(sql, batchArgs);
+        invalidateQueryCache(sqlKey);
+        return ii;
     }
 
     /**
@@ -223,8 +273,10 @@ public abstract class AbstractDao {
      * @param clazz
      */
     public <T> List<T> qryObjList(String sqlKey, Map<String, Object> paramMap, Class<T> clazz) {
-        String sql = SqlTemplateUtil.getInstance().getSqlString(sqlKey, paramMap);
-        return getNamedParameterJdbcTemplate().query(sql, paramMap, new BeanPropertyRowMapper<T>(clazz));
+        return queryWithCache(sqlKey, "objList:" + clazz.getName(), paramMap, () -> {
+            String sql = SqlTemplateUtil.getInstance().getSqlString(sqlKey, paramMap);
+            return getNamedParameterJdbcTemplate().query(sql, paramMap, new BeanPropertyRowMapper<T>(clazz));
+        });
     }
 
     /**
@@ -235,8 +287,10 @@ public abstract class AbstractDao {
      * @param clazz
      */
     public <T> List<T> pagingObjList(String sqlKey, int pagesize, int pagenum, Map<String, Object> paramMap, Class<T> clazz) {
-        String sql = SqlTemplateUtil.getInstance().getPageSqlString(sqlKey, pagesize, pagenum, paramMap);
-        return getNamedParameterJdbcTemplate().query(sql, paramMap, new BeanPropertyRowMapper<T>(clazz));
+        return queryWithCache(sqlKey, "objPage:" + pagesize + ":" + pagenum + ":" + clazz.getName(), paramMap, () -> {
+            String sql = SqlTemplateUtil.getInstance().getPageSqlString(sqlKey, pagesize, pagenum, paramMap);
+            return getNamedParameterJdbcTemplate().query(sql, paramMap, new BeanPropertyRowMapper<T>(clazz));
+        });
     }
 
     /**
@@ -247,8 +301,166 @@ public abstract class AbstractDao {
      * @param clazz
      */
     public <T> T qryObj(String sqlKey, Map<String, Object> paramMap, Class<T> clazz) {
-        String sql = SqlTemplateUtil.getInstance().getSqlString(sqlKey, paramMap);
-        return getNamedParameterJdbcTemplate().queryForObject(sql, paramMap, new BeanPropertyRowMapper<T>(clazz));
+        return queryWithCache(sqlKey, "obj:" + clazz.getName(), paramMap, () -> {
+            String sql = SqlTemplateUtil.getInstance().getSqlString(sqlKey, paramMap);
+            return getNamedParameterJdbcTemplate().queryForObject(sql, paramMap, new BeanPropertyRowMapper<T>(clazz));
+        });
+    }
+
+    /**
+     * 使查询结果缓存失效：清除与SQL声明的表有交集的查询结果，SQL未声明表时清除全部查询结果
+     *
+     * @param sqlKey，执行的DML语句的索引key字符串
+     **/
+    public void invalidateQueryCache(String sqlKey) {
+        if (queryCache == null)
+            return;
+
+        Set<String> tables = SqlTemplateUtil.getInstance().getTables(sqlKey);
+        synchronized (queryCacheLock) {
+            queryCacheVersion.incrementAndGet();
+            if (tables.isEmpty()) {
+                queryCache.invalidateAll((key, value) -> true);
+            } else {
+                queryCache.invalidateAll((key, value) -> !Collections.disjoint(((QueryCacheEntry) value).tables, tables));
+            }
+        }
+    }
+
+    /**
+     * 查询SQL配置了cacheTtl时先从缓存中取结果，缓存key为sqlKey、查询方式和排序后的参数
+     *
+     * @param sqlKey，SQL语句配置文件配置的SQL语句的索引key字符串
+     * @param variant，查询方式，区分同一SQL的列表、分页、计数等查询
+     * @param paramMap，绑定参数
+     * @param query，实际查询
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T queryWithCache(String sqlKey, String variant, Map<String, Object> paramMap, Supplier<T> query) {
+        long cacheTtl = queryCache == null ? 0L : SqlTemplateUtil.getInstance().getCacheTtl(sqlKey);
+        if (cacheTtl <= 0)
+            return query.get();
+
+        String key = sqlKey + "|" + variant + "|" + canonicalParam(paramMap);
+        QueryCacheEntry entry = (QueryCacheEntry) queryCache.get(key);
+        if (entry != null) {
+            if (entry.expireTime - System.currentTimeMillis() > 0)
+                return (T) copyResult(entry.result);
+            queryCache.remove(key);
+        }
+
+        long version = queryCacheVersion.get();
+        T result = query.get();
+        QueryCacheEntry newEntry = new QueryCacheEntry(copyResult(result), System.currentTimeMillis() + cacheTtl, SqlTemplateUtil.getInstance().getTables(sqlKey));
+        synchronized (queryCacheLock) {
+            if (version == queryCacheVersion.get())
+                queryCache.put(key, newEntry);
+        }
+        return result;
+    }
+
+    /**
+     * 查询结果的副本：List和Map逐层复制，Java对象按属性复制，数字、字符串等不可变值直接返回
+     *
+     * @param value
+     */
+    private static Object copyResult(Object value) {
+        if (value == null || value instanceof Number || value instanceof CharSequence || value instanceof Boolean) {
+            return value;
+        } else if (value instanceof List) {
+            List<Object> copy = new ArrayList<Object>(((List<?>) value).size());
+            for (Object item : (List<?>) value)
+                copy.add(copyResult(item));
+            return copy;
+        } else if (value instanceof LinkedCaseInsensitiveMap) {
+            //queryForList返回的行，保留按列名忽略大小写取值
+            return ((LinkedCaseInsensitiveMap<?>) value).clone();
+        } else if (value instanceof Map) {
+            return new LinkedHashMap<Object, Object>((Map<?, ?>) value);
+        }
+        Object copy = BeanUtils.instantiateClass(value.getClass());
+        BeanUtils.copyProperties(value, copy);
+        return copy;
+    }
+
+    /**
+     * 参数的规范字符串，Map按key排序，内容相同的参数得到相同的字符串
+     * 每个值都带类型标记和长度前缀，不同的参数不会因为值中包含分隔符或类型不同而得到相同的字符串
+     *
+     * @param value
+     */
+    private static String canonicalParam(Object value) {
+        StringBuilder sb = new StringBuilder();
+        appendCanonical(sb, value);
+        return sb.toString();
+    }
+
+    private static void appendCanonical(StringBuilder sb, Object value) {
+        if (value == null) {
+            sb.append('N');
+        } else if (value instanceof Map) {
+            //按key的规范字符串排序，key的类型不要求可比较
+            Map<String, Object> sorted = new TreeMap<String, Object>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet())
+                sorted.put(canonicalParam(entry.getKey()), entry.getValue());
+            sb.append('M').append(sorted.size()).append('{');
+            for (Map.Entry<String, Object> entry : sorted.entrySet()) {
+                sb.append(entry.getKey());
+                appendCanonical(sb, entry.getValue());
+            }
+            sb.append('}');
+        } else if (value instanceof Collection) {
+            sb.append('L').append(((Collection<?>) value).size()).append('[');
+            for (Object item : (Collection<?>) value)
+                appendCanonical(sb, item);
+            sb.append(']');
+        } else if (value instanceof Object[]) {
+            appendCanonical(sb, Arrays.asList((Object[]) value));
+        } else {
+            String text;
+            if (value instanceof Timestamp)
+                text = ((Timestamp) value).getTime() + "." + ((Timestamp) value).getNanos();
+            else if (value instanceof Date)
+                text = String.valueOf(((Date) value).getTime());
+            else if (value.getClass().isArray())
+                text = arrayToString(value);
+            else
+                text = value.toString();
+            sb.append(value.getClass().getName()).append(':').append(text.length()).append(':').append(text);
+        }
+    }
+
+    private static String arrayToString(Object array) {
+        if (array instanceof byte[])
+            return Arrays.toString((byte[]) array);
+        if (array instanceof int[])
+            return Arrays.toString((int[]) array);
+        if (array instanceof long[])
+            return Arrays.toString((long[]) array);
+        if (array instanceof short[])
+            return Arrays.toString((short[]) array);
+        if (array instanceof char[])
+            return Arrays.toString((char[]) array);
+        if (array instanceof boolean[])
+            return Arrays.toString((boolean[]) array);
+        if (array instanceof float[])
+            return Arrays.toString((float[]) array);
+        return Arrays.toString((double[]) array);
+    }
+
+    /**
+     * 缓存的查询结果
+     */
+    private static class QueryCacheEntry {
+        private Object result;
+        private long expireTime;
+        private Set<String> tables;
+
+        private QueryCacheEntry(Object result, long expireTime, Set<String> tables) {
+            this.result = result;
+            this.expireTime = expireTime;
+            this.tables = tables;
+        }
     }
 
 }
@@ -1,13 +1,41 @@
 package io.github.msyysoft.java.database;
 
+import io.github.msyysoft.java.utiltools.cache4j.core.ICache;
+import org.springframework.beans.BeanUtils;
 import org.springframework.util.CollectionUtils;
 
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 public abstract class SingleTableDao extends AbstractDao {
 
+    /**
+     * 主键查询结果缓存，key为表名加主键参数，未设置时不缓存
+     * 表上的更新、删除和清空操作会使该表的全部缓存失效，缓存中保存独立的副本，每次命中返回新的副本，调用方可以修改返回的对象
+     */
+    private ICache<String, TableBean> entityCache;
+
+    /**
+     * 缓存失效次数，查询期间发生过失效时查询结果不放入缓存，避免旧数据覆盖失效
+     */
+    private final AtomicLong entityCacheVersion = new AtomicLong();
+
+    /**
+     * 放入缓存前的版本检查与失效操作互斥，避免检查通过后、放入前发生的失效被覆盖
+     */
+    private final Object entityCacheLock = new Object();
+
+    public ICache<String, TableBean> getEntityCache() {
+        return entityCache;
+    }
+
+    public void setEntityCache(ICache<String, TableBean> entityCache) {
+        this.entityCache = entityCache;
+    }
+
     public <T extends TableBean> int addNewRecord(T bean) {
         int i = SingleTablePersistUtils.addNewRecord(this, bean);
         clearBeanConditions(bean);
@@ -47,30 +75,70 @@ public abstract class SingleTableDao extends AbstractDao {
 
     public <T extends TableBean> int updateRecordAllByPrimaryKey(T bean) {
         int i = SingleTablePersistUtils.updateRecordAllByPrimaryKey(this, bean);
+        invalidateEntityCache(bean);
         clearBeanConditions(bean);
         return i;
     }
 
+    public <T extends TableBean> int updateRecordAllByPrimaryKeyBatch(List<T> beanList) {
+        int[] ii = SingleTablePersistUtils.updateRecordAllByPrimaryKeyBatch(this, beanList);
+        if (!CollectionUtils.isEmpty(beanList)) {
+            invalidateEntityCache(beanList.get(0));
+            beanList.forEach(this::clearBeanConditions);
+        }
+        if (ii != null) {
+            int i = 0;
+            for (int j : ii) i += j;
+            return i;
+        } else {
+            return 0;
+        }
+    }
+
     public <T extends TableBean> int updateRecordColumnsBySqlConditions(T bean) {
         int i = SingleTablePersistUtils.updateRecordColumnsBySqlConditions(this, bean);
+        invalidateEntityCache(bean);
         clearBeanConditions(bean);
         return i;
     }
 
     public <T extends TableBean> int deleteRecordBySqlConditions(T bean) {
         int i = SingleTablePersistUtils.deleteRecordBySqlConditions(this, bean);
+        invalidateEntityCache(bean);
         clearBeanConditions(bean);
         return i;
     }
 
     public <T extends TableBean> int clearTable(T bean) {
         int i = SingleTablePersistUtils.clearTable(this, bean);
+        invalidateEntityCache(bean);
         clearBeanConditions(bean);
         return i;
     }
 
+    @SuppressWarnings("unchecked")
     public <T extends TableBean> T getRecordByPKMap(T bean, Map<String, Object> paramMap) {
+        if (entityCache == null) {
+            T t = SingleTablePersistUtils.getRecordByPKMap(this, bean, paramMap);
+            clearBeanConditions(bean);
+            return t;
+        }
+
+        String key = getEntityCacheKey(bean, paramMap);
+        TableBean cached = entityCache.get(key);
+        if (cached != null && bean.getClass().isInstance(cached)) {
+            clearBeanConditions(bean);
+            return (T) copyBean(cached);
+        }
+        long version = entityCacheVersion.get();
         T t = SingleTablePersistUtils.getRecordByPKMap(this, bean, paramMap);
+        if (t != null) {
+            TableBean copy = copyBean(t);
+            synchronized (entityCacheLock) {
+                if (version == entityCacheVersion.get())
+                    entityCache.put(key, copy);
+            }
+        }
         clearBeanConditions(bean);
         return t;
     }
@@ -87,6 +155,44 @@ public abstract class SingleTableDao extends AbstractDao {
         return i;
     }
 
+    /**
+     * 使表的全部主键查询缓存失效，更新和删除的条件不一定是主键，因此按表失效
+     *
+     * @param bean
+     */
+    public <T extends TableBean> void invalidateEntityCache(T bean) {
+        if (entityCache != null) {
+            String prefix = bean.getSingleTableName() + ":";
+            synchronized (entityCacheLock) {
+                entityCacheVersion.incrementAndGet();
+                entityCache.invalidateAll((key, value) -> key.startsWith(prefix));
+            }
+        }
+    }
+
+    /**
+     * 复制记录的列属性，条件等非列状态不复制
+     *
+     * @param bean
+     * @return
+     */
+    private static TableBean copyBean(TableBean bean) {
+        TableBean copy = BeanUtils.instantiateClass(bean.getClass());
+        BeanUtils.copyProperties(bean, copy);
+        return copy;
+    }
+
+    /**
+     * 主键查询缓存key，参数按名称排序
+     *
+     * @param bean
+     * @param paramMap
+     * @return
+     */
+    private <T extends TableBean> String getEntityCacheKey(T bean, Map<String, Object> paramMap) {
+        return bean.getSingleTableName() + ":" + new TreeMap<String, Object>(paramMap);
+    }
+
     public <T extends TableBean> void clearBeanConditions(T bean) {
         if (bean != null)
             bean.clearAllConditions();
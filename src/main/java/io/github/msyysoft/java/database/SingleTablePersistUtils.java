@@ -71,6 +71,29 @@ public class SingleTablePersistUtils {
         return 0;
     }
 
+    /**
+     * update record data by primary key batch, update all column
+     *
+     * @param dao
+     * @param beanList
+     * @return
+     */
+    public static <T extends TableBean> int[] updateRecordAllByPrimaryKeyBatch(AbstractDao dao, List<T> beanList) {
+        if (!CollectionUtils.isEmpty(beanList) && beanList.get(0).hasPrimaryKey()) {
+            SqlParameterSource[] batchArgs = new SqlParameterSource[beanList.size()];
+            int i = 0;
+            for (T bean : beanList) {
+                bean.putInBeanMap();
+                batchArgs[i] = new MapSqlParameterSource(bean.beanMap);
+                i++;
+            }
+            String sql = beanList.get(0).getSqlUpdateAll();
+            log.debug("single-table update all batch sql >>> " + sql);
+            return dao.getNamedParameterJdbcTemplate().batchUpdate(sql, batchArgs);
+        }
+        return null;
+    }
+
     /**
      * update record data by sql condition, need set update column enum
      *
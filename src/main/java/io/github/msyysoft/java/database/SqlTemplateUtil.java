@@ -47,6 +47,8 @@ public class SqlTemplateUtil {
     private String sqlTemplateDir = "sqltemplate";
     private Logger log = LoggerFactory.getLogger(SqlTemplateUtil.class);
     private HashMap<String, String> sqlMap;
+    private HashMap<String, Long> sqlCacheTtlMap;
+    private HashMap<String, Set<String>> sqlTablesMap;
     private Configuration cfg = null;
     private StringTemplateLoader sTmpLoader = null;
     private List<String> repeatSqlkeyList = new ArrayList<String>();
@@ -71,6 +73,8 @@ public class SqlTemplateUtil {
      */
     private void init() throws IOException, DocumentException {
         sqlMap = new HashMap<String, String>();
+        sqlCacheTtlMap = new HashMap<String, Long>();
+        sqlTablesMap = new HashMap<String, Set<String>>();
 
         Resource[] resources = ResourcePatternUtils.getResourcePatternResolver(null).getResources("classpath:" + sqlTemplateDir + "/**/*.xml");
         for (Resource rc : resources) {
@@ -94,6 +98,7 @@ public class SqlTemplateUtil {
 
     /**
      * 加载类路径sqltemplate文件夹中所有XML文件，并用jdom解析配置文件
+     * sqlElement可以声明cacheTtl（查询结果缓存时间，单位毫秒）和tables（涉及的表，逗号分隔）属性
      */
     private void realinit(Resource rc) throws IOException, DocumentException {
         Document doc = null;
@@ -116,6 +121,19 @@ public class SqlTemplateUtil {
                     repeatSqlkeyList.add(key);
                 } else {
                     sqlMap.put(key, sql.getText());
+                    String cacheTtl = sql.attributeValue("cacheTtl");
+                    if (!StringUtils.isBlank(cacheTtl)) {
+                        sqlCacheTtlMap.put(key, Long.parseLong(cacheTtl.trim()));
+                    }
+                    String tables = sql.attributeValue("tables");
+                    if (!StringUtils.isBlank(tables)) {
+                        Set<String> tableSet = new HashSet<String>();
+                        for (String table : tables.split(",")) {
+                            if (!StringUtils.isBlank(table))
+                                tableSet.add(table.trim().toLowerCase());
+                        }
+                        sqlTablesMap.put(key, Collections.unmodifiableSet(tableSet));
+                    }
                 }
             }
         }
@@ -125,6 +143,28 @@ public class SqlTemplateUtil {
         return sqlMap.keySet();
     }
 
+    /**
+     * 获取SQL配置的查询结果缓存时间
+     *
+     * @param sqlKey，SQL XML配置文件中的索引key值
+     * @return long 缓存时间，单位毫秒，未配置时返回0
+     */
+    public long getCacheTtl(String sqlKey) {
+        Long cacheTtl = sqlCacheTtlMap.get(sqlKey);
+        return cacheTtl == null ? 0L : cacheTtl;
+    }
+
+    /**
+     * 获取SQL配置中声明的表，表名统一为小写
+     *
+     * @param sqlKey，SQL XML配置文件中的索引key值
+     * @return Set 未配置时返回空集合
+     */
+    public Set<String> getTables(String sqlKey) {
+        Set<String> tables = sqlTablesMap.get(sqlKey);
+        return tables == null ? Collections.<String>emptySet() : tables;
+    }
+
     /**
      * 根据SQL配置文件中的索引key值，取到配置文件中的SQL语句字符串
      *
@@ -0,0 +1,324 @@
+package io.github.msyysoft.java.database;
+
+import io.github.msyysoft.java.utiltools.cache4j.core.ICache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Title: 单表写后缓存<br>
+ * Description: 写入先进入内存，同一主键的多次写入只保留最后一次，按数量或时间批量写入数据库。
+ * 新增记录通过addNewRecordBatch写入，修改记录通过updateRecordAllByPrimaryKeyBatch按主键整行更新，
+ * 因此交给缓存的对象必须是完整的一行数据，交出后不能再修改。
+ * 待写入的记录达到上限时，由写入线程同步刷新，起到背压作用，刷新后仍然已满时拒绝写入；关闭或JVM退出时刷新剩余记录。
+ * 批量写入失败时逐条重新写入，单条记录失败超过重试次数后记录日志并丢弃，不再阻塞后续刷新。
+ * 已写入的记录同时保存在cache4j缓存中，get()可以读到尚未落库的最新值。<br>
+ */
+public class WriteBehindCache<T extends TableBean> implements Closeable {
+
+    private static Logger log = LoggerFactory.getLogger(WriteBehindCache.class);
+
+    /**
+     * 默认重试次数
+     */
+    public static final int DEFAULT_MAX_RETRIES = 3;
+
+    private SingleTableDao dao;
+
+    /**
+     * 从记录中取出主键值
+     */
+    private Function<T, Object> keyFunction;
+
+    /**
+     * 最近写入的记录，按主键缓存
+     */
+    private ICache<Object, T> cache;
+
+    /**
+     * 待写入记录数上限
+     */
+    private int maxPending;
+
+    /**
+     * 单条记录写入失败后的重试次数
+     */
+    private int maxRetries;
+
+    /**
+     * 待写入的记录，按主键合并，保持首次写入顺序
+     */
+    private Map<Object, PendingWrite<T>> pendingMap = new LinkedHashMap<Object, PendingWrite<T>>();
+
+    /**
+     * 刷新锁，保证批次按顺序写入数据库
+     */
+    private final Object flushLock = new Object();
+
+    private ScheduledExecutorService flushExecutor;
+
+    private Thread shutdownHook;
+
+    private volatile boolean closed;
+
+    /**
+     * @param dao，写入数据库使用的DAO
+     * @param keyFunction，从记录中取出主键值
+     * @param cache，最近写入的记录缓存
+     * @param maxPending，待写入记录数达到该值时立即刷新
+     * @param flushIntervalMillis，定时刷新间隔，单位毫秒
+     */
+    public WriteBehindCache(SingleTableDao dao, Function<T, Object> keyFunction, ICache<Object, T> cache, int maxPending, long flushIntervalMillis) {
+        this(dao, keyFunction, cache, maxPending, flushIntervalMillis, DEFAULT_MAX_RETRIES);
+    }
+
+    /**
+     * @param dao，写入数据库使用的DAO
+     * @param keyFunction，从记录中取出主键值
+     * @param cache，最近写入的记录缓存
+     * @param maxPending，待写入记录数达到该值时立即刷新
+     * @param flushIntervalMillis，定时刷新间隔，单位毫秒
+     * @param maxRetries，单条记录写入失败后的重试次数，超过后丢弃
+     */
+    public WriteBehindCache(SingleTableDao dao, Function<T, Object> keyFunction, ICache<Object, T> cache, int maxPending, long flushIntervalMillis, int maxRetries) {
+        if (maxPending <= 0 || flushIntervalMillis <= 0)
+            throw new IllegalArgumentException("maxPending and flushIntervalMillis must be greater than 0");
+        if (maxRetries < 0)
+            throw new IllegalArgumentException("maxRetries must not be negative");
+        this.dao = dao;
+        this.keyFunction = keyFunction;
+        this.cache = cache;
+        this.maxPending = maxPending;
+        this.maxRetries = maxRetries;
+
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "write-behind-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flushExecutor.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+
+        shutdownHook = new Thread(this::flushQuietly, "write-behind-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * 新增记录，刷新前再次写入同一主键时仍按新增写入
+     *
+     * @param bean
+     */
+    public void insert(T bean) {
+        enqueue(bean, true);
+    }
+
+    /**
+     * 按主键整行更新记录
+     *
+     * @param bean
+     */
+    public void update(T bean) {
+        enqueue(bean, false);
+    }
+
+    /**
+     * 获取最近写入的记录，包括尚未写入数据库的记录
+     *
+     * @param key，主键值
+     * @return 不存在时返回null
+     */
+    public T get(Object key) {
+        synchronized (this) {
+            PendingWrite<T> pending = pendingMap.get(key);
+            if (pending != null)
+                return pending.bean;
+        }
+        return cache.get(key);
+    }
+
+    /**
+     * 待写入数据库的记录数
+     *
+     * @return
+     */
+    public synchronized int pendingSize() {
+        return pendingMap.size();
+    }
+
+    /**
+     * 把待写入的记录批量写入数据库，写入失败的记录重新放回队列，超过重试次数的记录丢弃
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            Map<Object, PendingWrite<T>> batch;
+            synchronized (this) {
+                if (pendingMap.isEmpty())
+                    return;
+                batch = pendingMap;
+                pendingMap = new LinkedHashMap<Object, PendingWrite<T>>();
+            }
+
+            List<PendingWrite<T>> insertList = new ArrayList<PendingWrite<T>>();
+            List<PendingWrite<T>> updateList = new ArrayList<PendingWrite<T>>();
+            for (PendingWrite<T> pending : batch.values()) {
+                if (pending.insert)
+                    insertList.add(pending);
+                else
+                    updateList.add(pending);
+            }
+
+            if (!insertList.isEmpty())
+                writeBatch(insertList, true);
+            if (!updateList.isEmpty())
+                writeBatch(updateList, false);
+        }
+    }
+
+    /**
+     * 停止定时刷新并写入剩余记录
+     */
+    @Override
+    public void close() {
+        closed = true;
+        flushExecutor.shutdown();
+        try {
+            flushExecutor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            //JVM正在退出
+        }
+    }
+
+    private void enqueue(T bean, boolean insert) {
+        if (closed)
+            throw new IllegalStateException("write-behind cache is closed");
+
+        Object key = keyFunction.apply(bean);
+        if (!offer(key, bean, insert)) {
+            //队列已满，同步刷新腾出空间
+            flush();
+            if (!offer(key, bean, insert))
+                throw new IllegalStateException("write-behind queue is full, maxPending: " + maxPending);
+        }
+
+        if (pendingSize() >= maxPending)
+            flush();
+    }
+
+    /**
+     * 放入待写入队列并更新缓存，同一主键合并；新主键在队列已满时不放入
+     * 队列与缓存在同一把锁内更新，并发写同一主键时缓存中的值与最终写入数据库的值一致
+     *
+     * @param key
+     * @param bean
+     * @param insert
+     * @return 是否放入
+     */
+    private synchronized boolean offer(Object key, T bean, boolean insert) {
+        PendingWrite<T> old = pendingMap.get(key);
+        if (old == null && pendingMap.size() >= maxPending)
+            return false;
+        pendingMap.put(key, new PendingWrite<T>(bean, insert || (old != null && old.insert)));
+        cache.put(key, bean);
+        return true;
+    }
+
+    /**
+     * 批量写入，失败时逐条写入以找出失败的记录
+     *
+     * @param batch
+     * @param insert
+     */
+    private void writeBatch(List<PendingWrite<T>> batch, boolean insert) {
+        List<T> beanList = new ArrayList<T>(batch.size());
+        for (PendingWrite<T> pending : batch)
+            beanList.add(pending.bean);
+
+        try {
+            if (insert)
+                dao.addNewRecordBatch(beanList);
+            else
+                dao.updateRecordAllByPrimaryKeyBatch(beanList);
+            return;
+        } catch (RuntimeException e) {
+            log.error("write-behind " + (insert ? "insert" : "update") + " batch failed, size: " + batch.size() + ", retry one by one", e);
+        }
+
+        //批量写入可能已部分生效，逐条写入时重复的记录会失败并最终被丢弃
+        for (PendingWrite<T> pending : batch) {
+            try {
+                if (insert)
+                    dao.addNewRecord(pending.bean);
+                else
+                    dao.updateRecordAllByPrimaryKey(pending.bean);
+            } catch (RuntimeException e) {
+                failed(pending, e);
+            }
+        }
+    }
+
+    /**
+     * 写入失败的记录放回队列，已有更新的写入时保留新的记录；超过重试次数时丢弃
+     *
+     * @param pending
+     * @param e
+     */
+    private synchronized void failed(PendingWrite<T> pending, RuntimeException e) {
+        Object key = keyFunction.apply(pending.bean);
+        PendingWrite<T> newer = pendingMap.get(key);
+
+        if (++pending.attempts > maxRetries) {
+            log.error("write-behind record dropped after " + pending.attempts + " attempts, key: " + key, e);
+            //缓存中不再保留未能落库的记录
+            if (newer == null)
+                cache.remove(key);
+            else if (pending.insert)
+                newer.insert = true;
+            return;
+        }
+
+        if (newer == null)
+            pendingMap.put(key, pending);
+        else if (pending.insert)
+            newer.insert = true;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("write-behind flush failed", e);
+        }
+    }
+
+    /**
+     * 待写入的记录
+     */
+    private static class PendingWrite<T> {
+        private T bean;
+        private boolean insert;
+        /**
+         * 已失败的次数
+         */
+        private int attempts;
+
+        private PendingWrite(T bean, boolean insert) {
+            this.bean = bean;
+            this.insert = insert;
+        }
+    }
+
+}
@@ -0,0 +1,117 @@
+package io.github.msyysoft.java.utiltools.cache4j.buffer;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * 条带化的有界读缓冲区
+ * 读操作只把命中的元素记录到当前线程对应的环形缓冲中，由持锁线程批量回放；
+ * 缓冲写满时新的记录直接丢弃（有损），只影响淘汰顺序的精确性，不影响数据正确性。
+ * @author 杨元
+ *
+ * @param <E>
+ */
+public class ReadBuffer<E> {
+    
+    /**
+     * 单个环形缓冲的容量，必须为2的幂
+     */
+    private static final int BUFFER_SIZE = 16;
+    
+    private static final int BUFFER_MASK = BUFFER_SIZE - 1;
+    
+    /**
+     * 条带数量上限
+     */
+    private static final int MAX_STRIPES = 64;
+    
+    /**
+     * 环形缓冲
+     */
+    private final AtomicReferenceArray<E>[] buffers;
+    
+    /**
+     * 各条带的写位置
+     */
+    private final AtomicLong[] writeCounters;
+    
+    /**
+     * 各条带的读位置，只在回放时（持锁）推进
+     */
+    private final AtomicLong[] readCounters;
+    
+    /**
+     * 定位条带的掩码
+     */
+    private final int stripeMask;
+    
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ReadBuffer(){
+        int stripes = 1;
+        int cpus = Runtime.getRuntime().availableProcessors();
+        while(stripes < cpus && stripes < MAX_STRIPES){
+            stripes <<= 1;
+        }
+        this.stripeMask = stripes - 1;
+        this.buffers = new AtomicReferenceArray[stripes];
+        this.writeCounters = new AtomicLong[stripes];
+        this.readCounters = new AtomicLong[stripes];
+        for(int i = 0; i < stripes; i++){
+            this.buffers[i] = new AtomicReferenceArray<E>(BUFFER_SIZE);
+            this.writeCounters[i] = new AtomicLong();
+            this.readCounters[i] = new AtomicLong();
+        }
+    }
+    
+    /**
+     * 记录一个元素
+     * @param e
+     * @return 当前条带已满，需要回放时返回true
+     */
+    public boolean offer(E e){
+        int stripe = (int) Thread.currentThread().getId() & this.stripeMask;
+        AtomicLong writeCounter = this.writeCounters[stripe];
+        
+        long tail = writeCounter.get();
+        long size = tail - this.readCounters[stripe].get();
+        if(size >= BUFFER_SIZE){
+            //已满，丢弃本次记录
+            return true;
+        }
+        
+        if(writeCounter.compareAndSet(tail, tail + 1)){
+            this.buffers[stripe].lazySet((int) (tail & BUFFER_MASK), e);
+            return size + 1 >= BUFFER_SIZE;
+        }
+        
+        //与同条带的其他线程竞争失败，同样视为有损丢弃
+        return false;
+    }
+    
+    /**
+     * 回放所有已记录的元素，调用方必须持有对应缓存的锁
+     * @param consumer
+     */
+    public void drainTo(Consumer<E> consumer){
+        for(int stripe = 0; stripe < this.buffers.length; stripe++){
+            AtomicReferenceArray<E> buffer = this.buffers[stripe];
+            AtomicLong readCounter = this.readCounters[stripe];
+            
+            long head = readCounter.get();
+            long tail = this.writeCounters[stripe].get();
+            for(; head < tail; head++){
+                int index = (int) (head & BUFFER_MASK);
+                E e = buffer.get(index);
+                if(e == null){
+                    //写位置已推进但元素尚未发布，留待下次回放
+                    break;
+                }
+                buffer.lazySet(index, null);
+                consumer.accept(e);
+            }
+            readCounter.lazySet(head);
+        }
+    }
+    
+}
@@ -0,0 +1,661 @@
+package io.github.msyysoft.java.utiltools.cache4j.core;
+
+import io.github.msyysoft.java.utiltools.cache4j.core.impl.CacheConfig;
+import io.github.msyysoft.java.utiltools.cache4j.factory.INodeFactory;
+import io.github.msyysoft.java.utiltools.cache4j.linked.LinkedAbstract;
+import io.github.msyysoft.java.utiltools.cache4j.linked.impl.CacheLinked;
+import io.github.msyysoft.java.utiltools.cache4j.node.NodeAbstract;
+import io.github.msyysoft.java.utiltools.cache4j.node.impl.CacheNode;
+import io.github.msyysoft.java.utiltools.cache4j.node.impl.GuardNode;
+import io.github.msyysoft.java.utiltools.cache4j.stats.CacheStats;
+import io.github.msyysoft.java.utiltools.cache4j.stats.IStatsCounter;
+import io.github.msyysoft.java.utiltools.cache4j.timer.TimerWheel;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+
+/**
+ * 基于单条链表的缓存抽象
+ * 负责查找、计数、容量控制和过期，具体淘汰算法由子类决定节点的插入位置、淘汰位置和命中后的调整。
+ * 配置了过期时间时节点必须是CacheNode，过期的节点对get()立即不可见，并由时间轮批量回收。
+ * 配置了权重上限时按元素权重总和淘汰，权重记录在CacheNode上，非CacheNode节点权重按1计算。
+ * 配置了移除监听时，容量淘汰、过期、主动删除和覆盖的元素都会在removalExecutor中异步回调监听。
+ * 以上原因移出缓存的CacheNode以及clear()清空的CacheNode都会被标记为作废（retire）。
+ * @author 杨元
+ *
+ * @param <K>
+ * @param <V>
+ */
+public abstract class CacheAbstract<K, V> implements ICache<K, V>, ISnapshotable<K, V>, IRefreshable<K, V> {
+
+    /**
+     * 链表
+     */
+    protected LinkedAbstract<K, V> linked = null;
+
+    /**
+     * 链表节点工厂
+     */
+    protected INodeFactory<K, V> nodeFactory = null;
+
+    /**
+     * 配置
+     */
+    protected CacheConfig config = null;
+
+    /**
+     * 统计计数器
+     */
+    private IStatsCounter statsCounter = null;
+
+    /**
+     * 写入后过期时间，纳秒
+     */
+    private long expireAfterWriteNanos;
+
+    /**
+     * 访问后过期时间，纳秒
+     */
+    private long expireAfterAccessNanos;
+
+    /**
+     * 权重计算器，未配置时为null
+     */
+    private IWeigher<K, V> weigher = null;
+
+    /**
+     * 当前权重总和
+     */
+    private long totalWeight = 0L;
+
+    /**
+     * 移除通知分发
+     */
+    private RemovalDispatcher<K, V> removalDispatcher = null;
+
+    /**
+     * 是否需要在节点上记录写入和访问时间
+     */
+    private boolean recordTime;
+
+    /**
+     * 过期时间轮，未配置过期时间时为null
+     */
+    private TimerWheel<K, V> timerWheel = null;
+
+    /**
+     * 时间轮过期回调
+     */
+    private TimerWheel.IExpireHandler<K, V> expireHandler = new TimerWheel.IExpireHandler<K, V>() {
+
+        @Override
+        public long expireTime(CacheNode<K, V> node) {
+            return CacheAbstract.this.expireTime(node);
+        }
+
+        @Override
+        public void expire(CacheNode<K, V> node) {
+            CacheAbstract.this.removeNode(node);
+            CacheAbstract.this.notifyRemoval(node, RemovalCause.EXPIRED);
+        }
+
+    };
+
+    /**
+     * 构造方法
+     * @param config  配置对象
+     * @param nodeFactory  链表节点对象创建工厂
+     */
+    @SuppressWarnings("unchecked")
+    public CacheAbstract(CacheConfig config, INodeFactory<K, V> nodeFactory){
+        this.config = config;
+        this.nodeFactory = nodeFactory;
+        this.weigher = (IWeigher<K, V>) config.getWeigher();
+        this.removalDispatcher = RemovalDispatcher.create(config);
+        this.statsCounter = config.createStatsCounter();
+        this.linked = this.createLinked();
+        this.recordTime = config.isExpirable() || config.getRefreshAfterWrite() > 0;
+
+        if(config.isExpirable()){
+            this.expireAfterWriteNanos = TimeUnit.MILLISECONDS.toNanos(config.getExpireAfterWrite());
+            this.expireAfterAccessNanos = TimeUnit.MILLISECONDS.toNanos(config.getExpireAfterAccess());
+            this.timerWheel = new TimerWheel<K, V>(System.nanoTime());
+        }
+    }
+
+    /**
+     * 新节点加入链表
+     * @param node
+     */
+    protected abstract void linkNode(NodeAbstract<K, V> node);
+
+    /**
+     * 容量已满时从链表中移出一个节点
+     * @return 被淘汰的节点，链表为空时返回null
+     */
+    protected abstract NodeAbstract<K, V> unlinkVictim();
+
+    /**
+     * 节点被命中
+     * @param node
+     */
+    protected abstract void onAccess(NodeAbstract<K, V> node);
+
+    /**
+     * 修改链表前的回调，调用时已持有锁
+     */
+    protected void beforeWrite(){
+
+    }
+
+    /**
+     * 链表头是否是最后才会被淘汰的一端，快照导出和导入按此决定遍历和追加的方向
+     * @return
+     */
+    protected boolean isHeadHottest(){
+        return true;
+    }
+
+    /**
+     * 创建链表，构造方法中调用
+     * @return
+     */
+    protected LinkedAbstract<K, V> createLinked(){
+        return new CacheLinked<K, V>();
+    }
+
+    @Override
+    public void put(K key, V value) {
+        this.putNode(this.createNode(key, value));
+    }
+
+    /**
+     * 批量缓存，只加一次锁，全部写入后统一淘汰
+     */
+    @Override
+    public void putAll(Map<? extends K, ? extends V> map) {
+        //节点创建和权重计算在锁外完成
+        List<NodeAbstract<K, V>> nodes = new ArrayList<NodeAbstract<K, V>>(map.size());
+        for(Map.Entry<? extends K, ? extends V> entry : map.entrySet()){
+            nodes.add(this.createNode(entry.getKey(), entry.getValue()));
+        }
+
+        synchronized (this) {
+            this.beforeWrite();
+            this.expireEntries();
+            for(NodeAbstract<K, V> node : nodes){
+                this.linkNodeLocked(node);
+            }
+            this.evictToCapacity();
+        }
+    }
+
+    /**
+     * 放入已创建好的节点，保留节点上的时间戳等状态
+     * 组合型缓存在内部缓存之间转移节点时使用
+     * @param node
+     */
+    public void putNode(NodeAbstract<K, V> node) {
+        synchronized (this) {
+            this.beforeWrite();
+            this.expireEntries();
+            this.linkNodeLocked(node);
+            this.evictToCapacity();
+        }
+    }
+
+    @Override
+    public V get(K key) {
+        NodeAbstract<K, V> node = this.accessNode(key);
+
+        if(node != null){
+            return node.getValue();
+        }
+
+        this.statsCounter.recordMisses(1);
+        return null;
+    }
+
+    /**
+     * 访问节点：命中时计数并调整淘汰顺序，未命中时不计数
+     * 组合型缓存依次查找多个内部缓存时使用
+     * @param key
+     * @return 未命中或已过期时返回null
+     */
+    public NodeAbstract<K, V> accessNode(K key) {
+        NodeAbstract<K, V> node = linked.get(key);
+
+        if(node == null){
+            return null;
+        }
+
+        if(this.timerWheel == null){
+            this.onAccess(node);
+            this.statsCounter.recordHits(1);
+            return node;
+        }
+
+        long now = System.nanoTime();
+        CacheNode<K, V> cacheNode = (CacheNode<K, V>) node;
+        if(this.expireTime(cacheNode) - now > 0){
+            cacheNode.setAccessTime(now);
+            this.onAccess(node);
+            this.statsCounter.recordHits(1);
+            return node;
+        }
+
+        //已过期，立即移除
+        synchronized (this) {
+            if(linked.get(key) == node){
+                this.removeNode(node);
+                this.notifyRemoval(node, RemovalCause.EXPIRED);
+            }
+            this.expireEntries();
+        }
+        return null;
+    }
+
+    /**
+     * 批量获取，只加一次锁
+     */
+    @Override
+    public Map<K, V> getAll(Collection<? extends K> keys) {
+        Map<K, V> result = new LinkedHashMap<K, V>();
+        int misses = 0;
+
+        synchronized (this) {
+            for(K key : keys){
+                NodeAbstract<K, V> node = this.accessNode(key);
+                if(node != null){
+                    result.put(key, node.getValue());
+                }else{
+                    misses++;
+                }
+            }
+        }
+
+        this.statsCounter.recordMisses(misses);
+        return result;
+    }
+
+    @Override
+    public NodeAbstract<K, V> getNode(K key) {
+        NodeAbstract<K, V> node = linked.get(key);
+
+        if(node != null && this.timerWheel != null
+                && this.expireTime((CacheNode<K, V>) node) - System.nanoTime() <= 0){
+            return null;
+        }
+
+        return node;
+    }
+
+    @Override
+    public void remove(K key) {
+        this.remove(key, RemovalCause.EXPLICIT);
+    }
+
+    /**
+     * 按指定原因移除元素
+     * 组合型缓存在内部缓存之间转移节点时cause传null，不回调移除监听
+     * @param key
+     * @param cause  移除原因，为null时不回调
+     * @return 被移除的节点，不存在时返回null
+     */
+    public NodeAbstract<K, V> remove(K key, RemovalCause cause) {
+        synchronized (this) {
+            NodeAbstract<K, V> node = linked.get(key);
+            if(node != null){
+                this.removeNode(node);
+                if(cause != null){
+                    this.notifyRemoval(node, cause);
+                }
+            }
+            return node;
+        }
+    }
+
+    /**
+     * 批量移除，只加一次锁
+     */
+    @Override
+    public void removeAll(Collection<? extends K> keys) {
+        this.removeAll(keys, RemovalCause.EXPLICIT);
+    }
+
+    /**
+     * 按指定原因批量移除，只加一次锁
+     * @param keys
+     * @param cause  移除原因
+     */
+    public void removeAll(Collection<? extends K> keys, RemovalCause cause) {
+        synchronized (this) {
+            for(K key : keys){
+                NodeAbstract<K, V> node = linked.get(key);
+                if(node != null){
+                    this.removeNode(node);
+                    this.notifyRemoval(node, cause);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void invalidateAll(final BiPredicate<? super K, ? super V> predicate) {
+        synchronized (this) {
+            this.beforeWrite();
+            linked.forEachNode(node -> {
+                if(predicate.test(node.getKey(), node.getValue())){
+                    this.removeNode(node);
+                    this.notifyRemoval(node, RemovalCause.EXPLICIT);
+                }
+            });
+        }
+    }
+
+    @Override
+    public int size() {
+        return this.linked.size();
+    }
+
+    @Override
+    public CacheStats stats() {
+        return this.statsCounter.snapshot();
+    }
+
+    @Override
+    public void clear() {
+        synchronized (this) {
+            //节点副本可能被上层缓存持有，清空前逐个作废
+            linked.forEachNode(node -> {
+                if(node instanceof CacheNode){
+                    ((CacheNode<K, V>) node).retire();
+                }
+            });
+            this.linked = this.createLinked();
+            this.totalWeight = 0L;
+            if(this.timerWheel != null){
+                this.timerWheel.clear();
+            }
+        }
+        this.statsCounter.reset();
+    }
+
+    /**
+     * 立即回收所有已过期的元素
+     */
+    public void expireEntries() {
+        if(this.timerWheel == null){
+            return;
+        }
+        synchronized (this) {
+            this.timerWheel.advance(System.nanoTime(), this.expireHandler);
+        }
+    }
+
+    /**
+     * 原位替换值，重新计算权重，写入时间和过期时间从刷新时开始计算
+     */
+    @Override
+    public boolean refreshValue(NodeAbstract<K, V> node, V value) {
+        //权重在锁外计算
+        int weight = this.weigher != null ? this.weigher.weigh(node.getKey(), value) : 0;
+
+        synchronized (this) {
+            if(linked.get(node.getKey()) != node){
+                return false;
+            }
+
+            node.setValue(value);
+            if(node instanceof CacheNode){
+                CacheNode<K, V> cacheNode = (CacheNode<K, V>) node;
+                if(this.weigher != null){
+                    this.totalWeight += weight - cacheNode.getWeight();
+                    cacheNode.setWeight(weight);
+                }
+                cacheNode.setWriteTime(System.nanoTime());
+                if(this.timerWheel != null){
+                    this.timerWheel.schedule(cacheNode, this.expireTime(cacheNode));
+                }
+            }
+            this.evictToCapacity();
+            return true;
+        }
+    }
+
+    /**
+     * 按由热到冷的顺序取出节点，跳过已过期的节点
+     */
+    @Override
+    public List<NodeAbstract<K, V>> hottestNodes(int limit) {
+        List<NodeAbstract<K, V>> nodes = new ArrayList<NodeAbstract<K, V>>(Math.max(Math.min(limit, this.size()), 0));
+        long now = System.nanoTime();
+
+        synchronized (this) {
+            //先回放读缓冲，使链表顺序反映最近的访问
+            this.beforeWrite();
+            boolean headHottest = this.isHeadHottest();
+            NodeAbstract<K, V> node = headHottest ? linked.first() : linked.last();
+            while(node != null && !(node instanceof GuardNode) && nodes.size() < limit){
+                if(this.timerWheel == null || this.expireTime((CacheNode<K, V>) node) - now > 0){
+                    nodes.add(node);
+                }
+                node = headHottest ? node.getNextNode() : node.getPrevNode();
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * 追加到最冷的位置，不触发淘汰；过期时间从追加时开始计算
+     */
+    @Override
+    public boolean appendColdest(K key, V value, int usedCount) {
+        NodeAbstract<K, V> node = this.createNode(key, value);
+        if(node instanceof CacheNode){
+            ((CacheNode<K, V>) node).setUsedCount(usedCount);
+        }
+
+        synchronized (this) {
+            this.beforeWrite();
+            if(linked.get(key) != null){
+                return false;
+            }
+            if(config.getMaxElement() > 0 && this.size() >= config.getMaxElement()){
+                return false;
+            }
+            if(config.getMaxWeight() > 0 && this.totalWeight + this.weightOf(node) > config.getMaxWeight()){
+                return false;
+            }
+
+            if(this.isHeadHottest()){
+                linked.push(node);
+            }else{
+                linked.unshift(node);
+            }
+            this.trackNode(node);
+            return true;
+        }
+    }
+
+    /**
+     * 校验链表、元素数量上限和权重总和，不一致时抛出IllegalStateException
+     * 并发测试在所有线程静止时调用
+     */
+    public void checkIntegrity() {
+        synchronized (this) {
+            linked.checkIntegrity();
+
+            if(config.getMaxElement() > 0 && this.size() > config.getMaxElement()){
+                throw new IllegalStateException("size " + this.size() + " exceeds maxElement " + config.getMaxElement());
+            }
+
+            final long[] weight = {0L};
+            linked.forEachNode(node -> weight[0] += this.weightOf(node));
+            if(weight[0] != this.totalWeight){
+                throw new IllegalStateException("total weight " + this.totalWeight + " != sum of node weights " + weight[0]);
+            }
+        }
+    }
+
+    /**
+     * 创建节点，计算权重并记录时间
+     * @param key
+     * @param value
+     * @return
+     */
+    private NodeAbstract<K, V> createNode(K key, V value) {
+        NodeAbstract<K, V> node = nodeFactory.createNode(key, value);
+
+        if(this.weigher != null){
+            ((CacheNode<K, V>) node).setWeight(this.weigher.weigh(key, value));
+        }
+
+        if(this.recordTime){
+            long now = System.nanoTime();
+            CacheNode<K, V> cacheNode = (CacheNode<K, V>) node;
+            cacheNode.setWriteTime(now);
+            cacheNode.setAccessTime(now);
+        }
+
+        return node;
+    }
+
+    /**
+     * 节点加入链表和时间轮，替换同key的旧节点，不做淘汰，调用方必须持有锁
+     * @param node
+     */
+    private void linkNodeLocked(NodeAbstract<K, V> node) {
+        //防止元素重复
+        NodeAbstract<K, V> oldNode = linked.get(node.getKey());
+        if(oldNode != null){
+            this.removeNode(oldNode);
+            this.notifyRemoval(oldNode, RemovalCause.REPLACED);
+        }
+
+        this.linkNode(node);
+        this.trackNode(node);
+    }
+
+    /**
+     * 累计新加入链表的节点权重并放入时间轮，调用方必须持有锁
+     * @param node
+     */
+    private void trackNode(NodeAbstract<K, V> node) {
+        this.totalWeight += this.weightOf(node);
+
+        if(this.timerWheel != null){
+            CacheNode<K, V> cacheNode = (CacheNode<K, V>) node;
+            this.timerWheel.schedule(cacheNode, this.expireTime(cacheNode));
+        }
+    }
+
+    /**
+     * 按元素数量上限和权重上限淘汰，调用方必须持有锁
+     */
+    private void evictToCapacity() {
+        //判断元素数量是否超过上限
+        if(config.getMaxElement() > 0){
+            while(this.size() > config.getMaxElement() && this.evictNode() != null){
+                //继续淘汰
+            }
+        }
+
+        //判断权重总和是否超过上限，单个元素超过上限时自身也会被淘汰
+        if(config.getMaxWeight() > 0){
+            while(this.totalWeight > config.getMaxWeight() && this.evictNode() != null){
+                //继续淘汰
+            }
+        }
+    }
+
+    /**
+     * 从链表和时间轮中移除节点，调用方必须持有锁
+     * @param node
+     */
+    protected void removeNode(NodeAbstract<K, V> node) {
+        linked.remove(node);
+        this.descheduleNode(node);
+        this.totalWeight -= this.weightOf(node);
+    }
+
+    /**
+     * 按淘汰算法淘汰一个节点，调用方必须持有锁
+     * @return 被淘汰的节点，链表为空时返回null
+     */
+    private NodeAbstract<K, V> evictNode() {
+        NodeAbstract<K, V> victim = this.unlinkVictim();
+        if(victim != null){
+            this.descheduleNode(victim);
+            this.totalWeight -= this.weightOf(victim);
+            this.notifyRemoval(victim, RemovalCause.SIZE);
+        }
+        return victim;
+    }
+
+    /**
+     * 记录淘汰统计并分发移除通知
+     * @param node
+     * @param cause
+     */
+    protected void notifyRemoval(NodeAbstract<K, V> node, RemovalCause cause) {
+        if(node instanceof CacheNode){
+            ((CacheNode<K, V>) node).retire();
+        }
+        if(cause.wasEvicted()){
+            this.statsCounter.recordEviction(cause, this.weightOf(node));
+        }
+        this.removalDispatcher.dispatch(node.getKey(), node.getValue(), cause);
+    }
+
+    /**
+     * 节点权重
+     * @param node
+     * @return
+     */
+    private int weightOf(NodeAbstract<K, V> node) {
+        return node instanceof CacheNode ? ((CacheNode<K, V>) node).getWeight() : 1;
+    }
+
+    /**
+     * 将节点移出时间轮，调用方必须持有锁
+     * @param node
+     */
+    private void descheduleNode(NodeAbstract<K, V> node) {
+        if(this.timerWheel != null){
+            this.timerWheel.deschedule((CacheNode<K, V>) node);
+        }
+    }
+
+    /**
+     * 计算节点的到期时间，写入过期和访问过期取先到者
+     * @param node
+     * @return
+     */
+    private long expireTime(CacheNode<K, V> node) {
+        long writeExpire = this.expireAfterWriteNanos > 0 ? node.getWriteTime() + this.expireAfterWriteNanos : Long.MAX_VALUE;
+        long accessExpire = this.expireAfterAccessNanos > 0 ? node.getAccessTime() + this.expireAfterAccessNanos : Long.MAX_VALUE;
+
+        if(writeExpire == Long.MAX_VALUE){
+            return accessExpire;
+        }
+        if(accessExpire == Long.MAX_VALUE){
+            return writeExpire;
+        }
+        return writeExpire - accessExpire < 0 ? writeExpire : accessExpire;
+    }
+
+    /**
+     * 当前权重总和
+     * @return
+     */
+    public long weightedSize() {
+        return this.totalWeight;
+    }
+
+}
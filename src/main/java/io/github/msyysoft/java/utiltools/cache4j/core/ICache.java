@@ -1,6 +1,15 @@
 package io.github.msyysoft.java.utiltools.cache4j.core;
 
 import io.github.msyysoft.java.utiltools.cache4j.node.NodeAbstract;
+import io.github.msyysoft.java.utiltools.cache4j.stats.CacheStats;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
 
 /**
  * 缓存接口
@@ -38,6 +47,158 @@ public interface ICache<K, V> {
      */
     public void remove(K key);
     
+    /**
+     * 批量获取缓存数据
+     * 默认逐个调用get()，各实现可覆盖为一次加锁完成
+     * @param keys  键集合
+     * @return 按传入顺序排列的结果，未命中的键不放入结果
+     */
+    public default Map<K, V> getAll(Collection<? extends K> keys){
+        Map<K, V> result = new LinkedHashMap<K, V>();
+        for(K key : keys){
+            V value = this.get(key);
+            if(value != null){
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * 批量缓存
+     * 默认逐个调用put()，各实现可覆盖为一次加锁完成，全部写入后统一淘汰
+     * @param map  键值对
+     */
+    public default void putAll(Map<? extends K, ? extends V> map){
+        for(Map.Entry<? extends K, ? extends V> entry : map.entrySet()){
+            this.put(entry.getKey(), entry.getValue());
+        }
+    }
+    
+    /**
+     * 批量移除缓存数据
+     * 默认逐个调用remove()，各实现可覆盖为一次加锁完成
+     * @param keys  键集合
+     */
+    public default void removeAll(Collection<? extends K> keys){
+        for(K key : keys){
+            this.remove(key);
+        }
+    }
+    
+    /**
+     * 不存在时缓存，已存在时不修改
+     * 默认实现在缓存对象上加锁，写操作不在缓存对象上加锁的实现需要覆盖
+     * @param key  键
+     * @param value  值
+     * @return 已存在的值，不存在时返回null
+     */
+    public default V putIfAbsent(K key, V value){
+        synchronized (this) {
+            NodeAbstract<K, V> node = this.getNode(key);
+            if(node != null && node.getValue() != null){
+                return node.getValue();
+            }
+            this.put(key, value);
+            return null;
+        }
+    }
+    
+    /**
+     * 当前值等于oldValue时替换为newValue，按equals比较
+     * 默认实现在缓存对象上加锁，写操作不在缓存对象上加锁的实现需要覆盖
+     * @param key  键
+     * @param oldValue  期望的当前值
+     * @param newValue  新值
+     * @return 是否替换
+     */
+    public default boolean replace(K key, V oldValue, V newValue){
+        synchronized (this) {
+            NodeAbstract<K, V> node = this.getNode(key);
+            if(node == null || !Objects.equals(node.getValue(), oldValue)){
+                return false;
+            }
+            this.put(key, newValue);
+            return true;
+        }
+    }
+    
+    /**
+     * 不存在时计算并缓存，同一个key同时只有一次计算，其他调用方等待后直接取得结果
+     * 计算函数在缓存锁之外执行，不阻塞其他key的读写；计算期间其他线程直接写入的值优先
+     * 计算函数执行期间不持有锁，可以读写其他缓存；不能修改同一个缓存，递归计算同一个key时抛出IllegalStateException
+     * @param key  键
+     * @param mappingFunction  计算函数，返回null时不缓存
+     * @return 当前值或计算结果
+     */
+    public default V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction){
+        V value = this.get(key);
+        if(value != null){
+            return value;
+        }
+        
+        KeyLocks.Computation computation = KeyLocks.acquire(this, key);
+        try {
+            NodeAbstract<K, V> node = this.getNode(key);
+            if(node != null && node.getValue() != null){
+                return node.getValue();
+            }
+            
+            value = mappingFunction.apply(key);
+            if(value == null){
+                return null;
+            }
+            V existing = this.putIfAbsent(key, value);
+            return existing != null ? existing : value;
+        } finally {
+            KeyLocks.release(computation);
+        }
+    }
+    
+    /**
+     * 根据当前值计算新值，同一个key的计算依次执行
+     * 计算函数在缓存锁之外执行，写入时当前值已被其他写操作修改则用新的当前值重新计算，因此计算函数可能被调用多次
+     * 计算函数执行期间不持有锁，可以读写其他缓存；不能修改同一个缓存，递归计算同一个key时抛出IllegalStateException
+     * @param key  键
+     * @param remappingFunction  计算函数，参数为键和当前值（不存在时为null），返回null时移除
+     * @return 新值，移除时返回null
+     */
+    public default V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction){
+        KeyLocks.Computation computation = KeyLocks.acquire(this, key);
+        try {
+            while(true){
+                NodeAbstract<K, V> node = this.getNode(key);
+                V oldValue = node == null ? null : node.getValue();
+                V newValue = remappingFunction.apply(key, oldValue);
+                
+                synchronized (this) {
+                    node = this.getNode(key);
+                    if(!Objects.equals(node == null ? null : node.getValue(), oldValue)){
+                        continue;
+                    }
+                    if(newValue != null){
+                        this.put(key, newValue);
+                    }else if(node != null){
+                        this.remove(key);
+                    }
+                    return newValue;
+                }
+            }
+        } finally {
+            KeyLocks.release(computation);
+        }
+    }
+    
+    /**
+     * 移除所有满足条件的元素，只遍历一次
+     * 接口无法遍历元素，默认抛出UnsupportedOperationException，支持遍历的实现需要覆盖
+     * @param predicate  条件，参数为键和值
+     * @throws UnsupportedOperationException  实现不支持按条件移除
+     */
+    public default void invalidateAll(BiPredicate<? super K, ? super V> predicate){
+        throw new UnsupportedOperationException(this.getClass().getName() + " does not support invalidateAll");
+    }
+    
     /**
      * 缓存元素数量
      */
@@ -47,7 +208,18 @@ public interface ICache<K, V> {
      * 获取命中率
      * @return
      */
-    public double hitRatio();
+    public default double hitRatio(){
+        return this.stats().hitRate();
+    }
+    
+    /**
+     * 获取统计快照
+     * 默认返回空统计，不记录统计的实现无需覆盖
+     * @return
+     */
+    public default CacheStats stats(){
+        return CacheStats.empty();
+    }
     
     /**
      * 清空缓存
@@ -0,0 +1,41 @@
+package io.github.msyysoft.java.utiltools.cache4j.core;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 缓存加载函数接口
+ * @author 杨元
+ *
+ * @param <K>
+ * @param <V>
+ */
+public interface ICacheLoader<K, V> {
+    
+    /**
+     * 加载单个元素
+     * @param key  键
+     * @return 返回null时不缓存
+     * @throws Exception
+     */
+    public V load(K key) throws Exception;
+    
+    /**
+     * 批量加载，默认逐个调用load()，数据源支持批量查询时应覆盖此方法
+     * @param keys  键集合
+     * @return 加载到的元素，缺失的键不放入结果
+     * @throws Exception
+     */
+    public default Map<K, V> loadAll(Collection<? extends K> keys) throws Exception {
+        Map<K, V> result = new HashMap<K, V>();
+        for(K key : keys){
+            V value = this.load(key);
+            if(value != null){
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+    
+}
@@ -0,0 +1,24 @@
+package io.github.msyysoft.java.utiltools.cache4j.core;
+
+import io.github.msyysoft.java.utiltools.cache4j.node.NodeAbstract;
+
+/**
+ * 支持原位刷新值的缓存
+ * 刷新不创建新节点，保留节点在淘汰顺序中的位置，同时重新计算权重和写入时间。
+ * @author 杨元
+ *
+ * @param <K>
+ * @param <V>
+ */
+public interface IRefreshable<K, V> {
+    
+    /**
+     * 替换节点的值，节点已被删除或替换时放弃
+     * 新的权重超过上限时按淘汰算法淘汰
+     * @param node  刷新前取得的节点
+     * @param value  新值
+     * @return 是否替换
+     */
+    public boolean refreshValue(NodeAbstract<K, V> node, V value);
+    
+}
@@ -0,0 +1,20 @@
+package io.github.msyysoft.java.utiltools.cache4j.core;
+
+/**
+ * 缓存元素移除监听接口
+ * @author 杨元
+ *
+ * @param <K>
+ * @param <V>
+ */
+public interface IRemovalListener<K, V> {
+    
+    /**
+     * 元素被移除
+     * @param key  键
+     * @param value  值
+     * @param cause  移除原因
+     */
+    public void onRemoval(K key, V value, RemovalCause cause);
+    
+}
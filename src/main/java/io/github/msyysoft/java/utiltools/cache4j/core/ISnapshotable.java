@@ -0,0 +1,34 @@
+package io.github.msyysoft.java.utiltools.cache4j.core;
+
+import io.github.msyysoft.java.utiltools.cache4j.node.NodeAbstract;
+
+import java.util.List;
+
+/**
+ * 支持快照导出和导入的缓存
+ * 导出时按由热到冷的顺序取出节点，导入时把节点依次追加到最冷的位置，导入后的淘汰顺序与导出时一致。
+ * @author 杨元
+ *
+ * @param <K>
+ * @param <V>
+ */
+public interface ISnapshotable<K, V> {
+    
+    /**
+     * 按由热到冷的顺序取出节点，不影响统计和淘汰顺序
+     * 只复制节点引用，不复制值
+     * @param limit  最多取出的节点数
+     * @return
+     */
+    public List<NodeAbstract<K, V>> hottestNodes(int limit);
+    
+    /**
+     * 追加到最冷的位置，已存在相同key或容量已满时放弃
+     * @param key  键
+     * @param value  值
+     * @param usedCount  导出时的使用计数
+     * @return 是否追加
+     */
+    public boolean appendColdest(K key, V value, int usedCount);
+    
+}
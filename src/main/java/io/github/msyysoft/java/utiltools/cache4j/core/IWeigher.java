@@ -0,0 +1,21 @@
+package io.github.msyysoft.java.utiltools.cache4j.core;
+
+/**
+ * 缓存元素权重计算接口
+ * 权重一般为元素占用的字节数，缓存按权重总和控制容量
+ * @author 杨元
+ *
+ * @param <K>
+ * @param <V>
+ */
+public interface IWeigher<K, V> {
+    
+    /**
+     * 计算元素权重，写入时调用一次
+     * @param key  键
+     * @param value  值
+     * @return 非负整数
+     */
+    public int weigh(K key, V value);
+    
+}
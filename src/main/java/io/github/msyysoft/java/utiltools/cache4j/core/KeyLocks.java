@@ -0,0 +1,103 @@
+package io.github.msyysoft.java.utiltools.cache4j.core;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按缓存对象和key登记正在执行的计算
+ * 用于串行化同一个缓存中同一个key上的计算，后来的线程等待前一次计算结束，
+ * 计算函数执行期间不持有任何监视器锁，不同缓存、不同key之间互不阻塞，计算函数中可以嵌套访问其他缓存
+ * @author 杨元
+ *
+ */
+final class KeyLocks {
+
+    /**
+     * 正在执行的计算
+     */
+    private static final ConcurrentHashMap<Slot, Computation> COMPUTATIONS = new ConcurrentHashMap<Slot, Computation>();
+
+    private KeyLocks(){
+
+    }
+
+    /**
+     * 登记缓存中某个key上的计算，同一个key上已有计算时等待其结束
+     * @param cache
+     * @param key
+     * @return 本次计算，结束后必须调用release()
+     * @throws IllegalStateException  当前线程已在同一个key上计算，即计算函数中递归计算同一个key
+     */
+    static Computation acquire(Object cache, Object key) {
+        Slot slot = new Slot(cache, key);
+        Computation computation = new Computation(slot);
+        while(true){
+            Computation running = COMPUTATIONS.putIfAbsent(slot, computation);
+            if(running == null){
+                return computation;
+            }
+            if(running.owner == Thread.currentThread()){
+                throw new IllegalStateException("recursive computation on the same key");
+            }
+            running.done.join();
+        }
+    }
+
+    /**
+     * 结束计算，唤醒等待的线程
+     * @param computation
+     */
+    static void release(Computation computation) {
+        COMPUTATIONS.remove(computation.slot, computation);
+        computation.done.complete(null);
+    }
+
+    /**
+     * 一次计算
+     */
+    static final class Computation {
+
+        private final Slot slot;
+
+        private final Thread owner = Thread.currentThread();
+
+        private final CompletableFuture<Void> done = new CompletableFuture<Void>();
+
+        private Computation(Slot slot) {
+            this.slot = slot;
+        }
+
+    }
+
+    /**
+     * 缓存对象按引用比较，key按equals比较
+     */
+    private static final class Slot {
+
+        private final Object cache;
+
+        private final Object key;
+
+        private Slot(Object cache, Object key) {
+            this.cache = cache;
+            this.key = key;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this.cache) * 31 + Objects.hashCode(this.key);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if(!(obj instanceof Slot)){
+                return false;
+            }
+            Slot other = (Slot) obj;
+            return this.cache == other.cache && Objects.equals(this.key, other.key);
+        }
+
+    }
+
+}
@@ -0,0 +1,38 @@
+package io.github.msyysoft.java.utiltools.cache4j.core;
+
+/**
+ * 缓存元素被移除的原因
+ * @author 杨元
+ *
+ */
+public enum RemovalCause {
+    
+    /**
+     * 容量或权重超过上限被淘汰
+     */
+    SIZE,
+    
+    /**
+     * 过期
+     */
+    EXPIRED,
+    
+    /**
+     * 调用remove()等方法主动删除
+     */
+    EXPLICIT,
+    
+    /**
+     * 被相同key的新值覆盖
+     */
+    REPLACED;
+    
+    /**
+     * 是否由缓存自身淘汰（而非调用方操作）
+     * @return
+     */
+    public boolean wasEvicted(){
+        return this == SIZE || this == EXPIRED;
+    }
+    
+}
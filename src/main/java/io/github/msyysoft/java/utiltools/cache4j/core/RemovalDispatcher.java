@@ -0,0 +1,107 @@
+package io.github.msyysoft.java.utiltools.cache4j.core;
+
+import io.github.msyysoft.java.utiltools.cache4j.core.impl.CacheConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * 移除通知分发
+ * 把移除监听的回调提交到配置的线程池中执行，淘汰不增加put()的耗时；
+ * 线程池拒绝任务时在当前线程中回调。监听抛出的异常只记录日志，不影响缓存操作。
+ * @author 杨元
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class RemovalDispatcher<K, V> {
+
+    private static final Logger log = LoggerFactory.getLogger(RemovalDispatcher.class);
+
+    /**
+     * 移除监听，未配置时为null
+     */
+    private IRemovalListener<K, V> removalListener = null;
+
+    /**
+     * 回调线程池
+     */
+    private Executor executor = null;
+
+    /**
+     * 构造方法
+     * @param removalListener  移除监听，可以为null
+     * @param executor  回调线程池
+     */
+    public RemovalDispatcher(IRemovalListener<K, V> removalListener, Executor executor){
+        this.removalListener = removalListener;
+        this.executor = executor;
+    }
+
+    /**
+     * 按配置中的removalListener和removalExecutor创建，未配置线程池时使用ForkJoinPool.commonPool()
+     * @param config
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> RemovalDispatcher<K, V> create(CacheConfig config){
+        Executor executor = config.getRemovalExecutor() != null ? config.getRemovalExecutor() : ForkJoinPool.commonPool();
+        return new RemovalDispatcher<K, V>((IRemovalListener<K, V>) config.getRemovalListener(), executor);
+    }
+
+    /**
+     * 是否配置了移除监听
+     * @return
+     */
+    public boolean isEnabled() {
+        return this.removalListener != null;
+    }
+
+    /**
+     * 分发移除通知，key和value在调用时确定，之后节点被修改不影响回调参数
+     * @param key
+     * @param value
+     * @param cause
+     */
+    public void dispatch(final K key, final V value, final RemovalCause cause) {
+        if(this.removalListener == null){
+            return;
+        }
+        this.execute(() -> this.notify(key, value, cause));
+    }
+
+    /**
+     * 分发移除通知，值在回调线程中获取
+     * 值需要反序列化等较重的处理时使用，处理过程不占用调用方线程
+     * @param key
+     * @param valueSupplier
+     * @param cause
+     */
+    public void dispatchLazily(final K key, final Supplier<? extends V> valueSupplier, final RemovalCause cause) {
+        if(this.removalListener == null){
+            return;
+        }
+        this.execute(() -> this.notify(key, valueSupplier.get(), cause));
+    }
+
+    private void execute(Runnable task) {
+        try {
+            this.executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.run();
+        }
+    }
+
+    private void notify(K key, V value, RemovalCause cause) {
+        try {
+            this.removalListener.onRemoval(key, value, cause);
+        } catch (RuntimeException e) {
+            log.warn("cache removal listener failed, key: " + key, e);
+        }
+    }
+
+}
@@ -0,0 +1,339 @@
+package io.github.msyysoft.java.utiltools.cache4j.core.impl;
+
+import io.github.msyysoft.java.utiltools.cache4j.core.ICache;
+import io.github.msyysoft.java.utiltools.cache4j.core.RemovalCause;
+import io.github.msyysoft.java.utiltools.cache4j.core.RemovalDispatcher;
+import io.github.msyysoft.java.utiltools.cache4j.factory.INodeFactory;
+import io.github.msyysoft.java.utiltools.cache4j.linked.LinkedAbstract;
+import io.github.msyysoft.java.utiltools.cache4j.linked.impl.CacheLinked;
+import io.github.msyysoft.java.utiltools.cache4j.node.NodeAbstract;
+import io.github.msyysoft.java.utiltools.cache4j.stats.CacheStats;
+import io.github.msyysoft.java.utiltools.cache4j.stats.IStatsCounter;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.BiPredicate;
+
+/**
+ * ARC（Adaptive Replacement Cache）缓存淘汰算法实现
+ * T1存放只被访问过一次的数据，T2存放至少被访问过两次的数据，二者都按LRU排列；
+ * B1、B2是幽灵链表，只保留从T1、T2淘汰的key，不保留值。
+ * 写入的key命中B1说明T1过小，增大T1的目标容量；命中B2说明T2过小，减小T1的目标容量。
+ * 与TwoQueuesCache固定对半分配不同，新旧数据的容量比例随访问模式自动调整，无需修改配置。
+ * 实际元素数量不超过maxElement，幽灵key数量不超过maxElement。ARC需要固定容量，maxElement必须大于0。
+ * @author 杨元
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class ArcCache<K, V> implements ICache<K, V> {
+
+    /**
+     * 最近只访问过一次的数据
+     */
+    private LinkedAbstract<K, V> t1 = null;
+
+    /**
+     * 最近至少访问过两次的数据
+     */
+    private LinkedAbstract<K, V> t2 = null;
+
+    /**
+     * 从T1淘汰的key
+     */
+    private LinkedAbstract<K, V> b1 = null;
+
+    /**
+     * 从T2淘汰的key
+     */
+    private LinkedAbstract<K, V> b2 = null;
+
+    /**
+     * 链表节点工厂
+     */
+    private INodeFactory<K, V> nodeFactory = null;
+
+    /**
+     * 元素数量上限
+     */
+    private int capacity;
+
+    /**
+     * T1的目标容量，随访问模式自动调整
+     */
+    private int target;
+
+    /**
+     * 移除通知分发
+     */
+    private RemovalDispatcher<K, V> removalDispatcher = null;
+
+    /**
+     * 统计计数器
+     */
+    private IStatsCounter statsCounter = null;
+
+    /**
+     * 构造方法
+     * @param config  配置对象，maxElement必须大于0
+     * @param nodeFactory  链表节点对象创建工厂
+     */
+    public ArcCache(CacheConfig config, INodeFactory<K, V> nodeFactory){
+        if(config.getMaxElement() <= 0){
+            throw new IllegalArgumentException("maxElement must be greater than 0");
+        }
+        this.capacity = config.getMaxElement();
+        this.nodeFactory = nodeFactory;
+        this.removalDispatcher = RemovalDispatcher.create(config);
+        this.statsCounter = config.createStatsCounter();
+        this.reset();
+    }
+
+    @Override
+    public synchronized void put(K key, V value) {
+        //已缓存的元素替换值，并视为一次访问
+        NodeAbstract<K, V> node = this.findNode(key);
+        if(node != null){
+            V oldValue = node.getValue();
+            node.setValue(value);
+            this.promote(node);
+            this.removalDispatcher.dispatch(key, oldValue, RemovalCause.REPLACED);
+            return;
+        }
+
+        NodeAbstract<K, V> ghost = this.b1.get(key);
+        if(ghost != null){
+            //T1淘汰过早，增大T1目标容量
+            this.target = Math.min(this.capacity, this.target + Math.max(this.b2.size() / this.b1.size(), 1));
+            this.b1.remove(ghost);
+            this.replace(false);
+            this.t2.unshift(this.nodeFactory.createNode(key, value));
+            return;
+        }
+
+        ghost = this.b2.get(key);
+        if(ghost != null){
+            //T2淘汰过早，减小T1目标容量
+            this.target = Math.max(0, this.target - Math.max(this.b1.size() / this.b2.size(), 1));
+            this.b2.remove(ghost);
+            this.replace(true);
+            this.t2.unshift(this.nodeFactory.createNode(key, value));
+            return;
+        }
+
+        //全新的key
+        if(this.t1.size() + this.b1.size() >= this.capacity){
+            if(this.t1.size() < this.capacity){
+                this.b1.pop();
+                this.replace(false);
+            }else{
+                //B1为空，T1占满全部容量，直接淘汰T1最久未使用的元素
+                this.evict(this.t1.pop());
+            }
+        }else if(this.t1.size() + this.t2.size() + this.b1.size() + this.b2.size() >= this.capacity){
+            if(this.t1.size() + this.t2.size() + this.b1.size() + this.b2.size() >= this.capacity * 2){
+                this.b2.pop();
+            }
+            this.replace(false);
+        }
+
+        this.t1.unshift(this.nodeFactory.createNode(key, value));
+    }
+
+    @Override
+    public synchronized V get(K key) {
+        NodeAbstract<K, V> node = this.findNode(key);
+        if(node != null){
+            this.promote(node);
+            this.statsCounter.recordHits(1);
+            return node.getValue();
+        }
+
+        this.statsCounter.recordMisses(1);
+        return null;
+    }
+
+    @Override
+    public synchronized NodeAbstract<K, V> getNode(K key) {
+        return this.findNode(key);
+    }
+
+    @Override
+    public synchronized void remove(K key) {
+        NodeAbstract<K, V> node = this.findNode(key);
+        this.t1.remove(key);
+        this.t2.remove(key);
+        this.b1.remove(key);
+        this.b2.remove(key);
+        if(node != null){
+            this.removalDispatcher.dispatch(key, node.getValue(), RemovalCause.EXPLICIT);
+        }
+    }
+
+    /**
+     * 批量获取，只加一次锁
+     */
+    @Override
+    public synchronized Map<K, V> getAll(Collection<? extends K> keys) {
+        return ICache.super.getAll(keys);
+    }
+
+    /**
+     * 批量缓存，只加一次锁
+     */
+    @Override
+    public synchronized void putAll(Map<? extends K, ? extends V> map) {
+        ICache.super.putAll(map);
+    }
+
+    /**
+     * 批量移除，只加一次锁
+     */
+    @Override
+    public synchronized void removeAll(Collection<? extends K> keys) {
+        ICache.super.removeAll(keys);
+    }
+
+    /**
+     * 只遍历T1、T2，幽灵链表中的key不受影响
+     */
+    @Override
+    public synchronized void invalidateAll(BiPredicate<? super K, ? super V> predicate) {
+        this.invalidateAll(this.t1, predicate);
+        this.invalidateAll(this.t2, predicate);
+    }
+
+    @Override
+    public int size() {
+        return this.t1.size() + this.t2.size();
+    }
+
+    @Override
+    public CacheStats stats() {
+        return this.statsCounter.snapshot();
+    }
+
+    @Override
+    public void clear() {
+        synchronized (this) {
+            this.reset();
+        }
+        this.statsCounter.reset();
+    }
+
+    /**
+     * T1的目标容量
+     * @return
+     */
+    public synchronized int getTarget() {
+        return this.target;
+    }
+
+    /**
+     * T1（只访问过一次的数据）中的元素数量，不加锁
+     * @return
+     */
+    public int recencySize() {
+        return this.t1.size();
+    }
+
+    /**
+     * T2（访问过多次的数据）中的元素数量，不加锁
+     * @return
+     */
+    public int frequencySize() {
+        return this.t2.size();
+    }
+
+    private void reset() {
+        this.t1 = new CacheLinked<K, V>();
+        this.t2 = new CacheLinked<K, V>();
+        this.b1 = new CacheLinked<K, V>();
+        this.b2 = new CacheLinked<K, V>();
+        this.target = 0;
+    }
+
+    /**
+     * 在T1、T2中查找节点
+     * @param key
+     * @return
+     */
+    private NodeAbstract<K, V> findNode(K key) {
+        NodeAbstract<K, V> node = this.t1.get(key);
+        if(node == null){
+            node = this.t2.get(key);
+        }
+        return node;
+    }
+
+    /**
+     * 移除链表中所有满足条件的节点
+     * @param linked
+     * @param predicate
+     */
+    private void invalidateAll(final LinkedAbstract<K, V> linked, final BiPredicate<? super K, ? super V> predicate) {
+        linked.forEachNode(node -> {
+            if(predicate.test(node.getKey(), node.getValue())){
+                linked.remove(node);
+                this.removalDispatcher.dispatch(node.getKey(), node.getValue(), RemovalCause.EXPLICIT);
+            }
+        });
+    }
+
+    /**
+     * 命中的元素移到T2头部
+     * @param node
+     */
+    private void promote(NodeAbstract<K, V> node) {
+        if(this.t1.get(node.getKey()) == node){
+            this.t1.remove(node);
+        }else{
+            this.t2.remove(node);
+        }
+        this.t2.unshift(node);
+    }
+
+    /**
+     * 缓存已满时按目标容量从T1或T2淘汰一个元素，淘汰的key进入对应的幽灵链表
+     * @param inB2  本次写入的key是否命中B2
+     */
+    private void replace(boolean inB2) {
+        if(this.t1.size() + this.t2.size() < this.capacity){
+            return;
+        }
+
+        int t1Size = this.t1.size();
+        if(t1Size > 0 && (t1Size > this.target || (inB2 && t1Size == this.target) || this.t2.size() == 0)){
+            this.toGhost(this.t1.pop(), this.b1);
+        }else{
+            this.toGhost(this.t2.pop(), this.b2);
+        }
+    }
+
+    /**
+     * 淘汰的节点去掉值后放入幽灵链表头部
+     * @param node
+     * @param ghostLinked
+     */
+    private void toGhost(NodeAbstract<K, V> node, LinkedAbstract<K, V> ghostLinked) {
+        if(node == null){
+            return;
+        }
+        this.evict(node);
+        node.setValue(null);
+        ghostLinked.unshift(node);
+    }
+
+    /**
+     * 记录淘汰并分发移除通知
+     * @param node
+     */
+    private void evict(NodeAbstract<K, V> node) {
+        if(node == null){
+            return;
+        }
+        this.statsCounter.recordEviction(RemovalCause.SIZE, 1);
+        this.removalDispatcher.dispatch(node.getKey(), node.getValue(), RemovalCause.SIZE);
+    }
+
+}
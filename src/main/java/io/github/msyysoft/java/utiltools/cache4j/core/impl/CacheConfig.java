@@ -1,5 +1,13 @@
 package io.github.msyysoft.java.utiltools.cache4j.core.impl;
 
+import io.github.msyysoft.java.utiltools.cache4j.core.IRemovalListener;
+import io.github.msyysoft.java.utiltools.cache4j.core.IWeigher;
+import io.github.msyysoft.java.utiltools.cache4j.stats.IStatsCounter;
+import io.github.msyysoft.java.utiltools.cache4j.stats.impl.ConcurrentStatsCounter;
+import io.github.msyysoft.java.utiltools.cache4j.stats.impl.DisabledStatsCounter;
+
+import java.util.concurrent.Executor;
+
 /**
  * 缓存配置
  * @author 杨元
@@ -11,6 +19,74 @@ public class CacheConfig {
      * 缓存元素个数上限
      */
     private int maxElement;
+    
+    /**
+     * 并发级别，分段缓存的分段数量
+     */
+    private int concurrencyLevel = 16;
+    
+    /**
+     * 是否开启读缓冲
+     * 开启后LRU命中只记录到读缓冲中，批量回放调整链表顺序，淘汰顺序为近似LRU
+     */
+    private boolean readBuffered = false;
+    
+    /**
+     * 写入后过期时间，单位毫秒，0表示不过期
+     */
+    private long expireAfterWrite = 0L;
+    
+    /**
+     * 最近访问后过期时间，单位毫秒，0表示不过期
+     */
+    private long expireAfterAccess = 0L;
+    
+    /**
+     * 权重总和上限，0表示不限制
+     */
+    private long maxWeight = 0L;
+    
+    /**
+     * 权重计算器，未设置时每个元素权重为1
+     */
+    private IWeigher<?, ?> weigher = null;
+    
+    /**
+     * 写入后自动刷新时间，单位毫秒，0表示不刷新
+     * 超过刷新时间的元素仍然返回旧值，同时在后台重新加载，只对LoadingCache生效
+     */
+    private long refreshAfterWrite = 0L;
+    
+    /**
+     * 后台刷新使用的线程池，未设置时使用ForkJoinPool.commonPool()
+     */
+    private Executor refreshExecutor = null;
+    
+    /**
+     * 堆外内存上限，单位字节，只对OffHeapCache生效
+     */
+    private long maxOffHeapMemory = 64L * 1024 * 1024;
+    
+    /**
+     * 堆外内存单个slab大小，单位字节，同时是单个值序列化后的长度上限
+     */
+    private int slabSize = 1024 * 1024;
+    
+    /**
+     * 元素移除监听，容量淘汰、过期、主动删除和覆盖时回调
+     */
+    private IRemovalListener<?, ?> removalListener = null;
+    
+    /**
+     * 移除监听回调使用的线程池，未设置时使用ForkJoinPool.commonPool()
+     * 需要在写入线程中同步回调时可以设置为Runnable::run
+     */
+    private Executor removalExecutor = null;
+    
+    /**
+     * 是否记录命中、加载、淘汰统计，关闭后stats()返回空统计，hitRatio()恒为0
+     */
+    private boolean recordStats = true;
 
     private CacheConfig(){
         
@@ -24,6 +100,45 @@ public class CacheConfig {
         return new CacheConfig();
     }
     
+    /**
+     * 复制配置，组合型缓存为内部缓存分配容量时使用
+     * @return
+     */
+    public CacheConfig copy(){
+        CacheConfig config = new CacheConfig();
+        config.maxElement = this.maxElement;
+        config.concurrencyLevel = this.concurrencyLevel;
+        config.readBuffered = this.readBuffered;
+        config.expireAfterWrite = this.expireAfterWrite;
+        config.expireAfterAccess = this.expireAfterAccess;
+        config.maxWeight = this.maxWeight;
+        config.weigher = this.weigher;
+        config.refreshAfterWrite = this.refreshAfterWrite;
+        config.refreshExecutor = this.refreshExecutor;
+        config.maxOffHeapMemory = this.maxOffHeapMemory;
+        config.slabSize = this.slabSize;
+        config.removalListener = this.removalListener;
+        config.removalExecutor = this.removalExecutor;
+        config.recordStats = this.recordStats;
+        return config;
+    }
+    
+    /**
+     * 是否配置了过期时间
+     * @return
+     */
+    public boolean isExpirable(){
+        return this.expireAfterWrite > 0 || this.expireAfterAccess > 0;
+    }
+    
+    /**
+     * 按recordStats创建统计计数器
+     * @return
+     */
+    public IStatsCounter createStatsCounter(){
+        return this.recordStats ? new ConcurrentStatsCounter() : DisabledStatsCounter.INSTANCE;
+    }
+    
     public int getMaxElement() {
         return maxElement;
     }
@@ -32,4 +147,122 @@ public class CacheConfig {
         this.maxElement = maxElement;
         return this;
     }
+
+    public int getConcurrencyLevel() {
+        return concurrencyLevel;
+    }
+
+    public CacheConfig setConcurrencyLevel(int concurrencyLevel) {
+        this.concurrencyLevel = concurrencyLevel;
+        return this;
+    }
+
+    public boolean isReadBuffered() {
+        return readBuffered;
+    }
+
+    public CacheConfig setReadBuffered(boolean readBuffered) {
+        this.readBuffered = readBuffered;
+        return this;
+    }
+
+    public long getExpireAfterWrite() {
+        return expireAfterWrite;
+    }
+
+    public CacheConfig setExpireAfterWrite(long expireAfterWrite) {
+        this.expireAfterWrite = expireAfterWrite;
+        return this;
+    }
+
+    public long getExpireAfterAccess() {
+        return expireAfterAccess;
+    }
+
+    public CacheConfig setExpireAfterAccess(long expireAfterAccess) {
+        this.expireAfterAccess = expireAfterAccess;
+        return this;
+    }
+
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    public CacheConfig setMaxWeight(long maxWeight) {
+        this.maxWeight = maxWeight;
+        return this;
+    }
+
+    public long getRefreshAfterWrite() {
+        return refreshAfterWrite;
+    }
+
+    public CacheConfig setRefreshAfterWrite(long refreshAfterWrite) {
+        this.refreshAfterWrite = refreshAfterWrite;
+        return this;
+    }
+
+    public Executor getRefreshExecutor() {
+        return refreshExecutor;
+    }
+
+    public CacheConfig setRefreshExecutor(Executor refreshExecutor) {
+        this.refreshExecutor = refreshExecutor;
+        return this;
+    }
+
+    public long getMaxOffHeapMemory() {
+        return maxOffHeapMemory;
+    }
+
+    public CacheConfig setMaxOffHeapMemory(long maxOffHeapMemory) {
+        this.maxOffHeapMemory = maxOffHeapMemory;
+        return this;
+    }
+
+    public int getSlabSize() {
+        return slabSize;
+    }
+
+    public CacheConfig setSlabSize(int slabSize) {
+        this.slabSize = slabSize;
+        return this;
+    }
+
+    public IRemovalListener<?, ?> getRemovalListener() {
+        return removalListener;
+    }
+
+    public CacheConfig setRemovalListener(IRemovalListener<?, ?> removalListener) {
+        this.removalListener = removalListener;
+        return this;
+    }
+
+    public Executor getRemovalExecutor() {
+        return removalExecutor;
+    }
+
+    public CacheConfig setRemovalExecutor(Executor removalExecutor) {
+        this.removalExecutor = removalExecutor;
+        return this;
+    }
+
+    public IWeigher<?, ?> getWeigher() {
+        return weigher;
+    }
+
+    public CacheConfig setWeigher(IWeigher<?, ?> weigher) {
+        this.weigher = weigher;
+        return this;
+    }
+
+    public boolean isRecordStats() {
+        return recordStats;
+    }
+
+    public CacheConfig setRecordStats(boolean recordStats) {
+        this.recordStats = recordStats;
+        return this;
+    }
+    
 }
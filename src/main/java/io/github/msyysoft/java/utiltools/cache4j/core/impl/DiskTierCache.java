@@ -0,0 +1,265 @@
+package io.github.msyysoft.java.utiltools.cache4j.core.impl;
+
+import io.github.msyysoft.java.utiltools.cache4j.core.ICache;
+import io.github.msyysoft.java.utiltools.cache4j.core.IRemovalListener;
+import io.github.msyysoft.java.utiltools.cache4j.core.RemovalCause;
+import io.github.msyysoft.java.utiltools.cache4j.core.RemovalDispatcher;
+import io.github.msyysoft.java.utiltools.cache4j.disk.DiskStore;
+import io.github.msyysoft.java.utiltools.cache4j.node.NodeAbstract;
+import io.github.msyysoft.java.utiltools.cache4j.stats.CacheStats;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * 磁盘二级缓存
+ * 内存缓存容量淘汰的元素写入磁盘日志，内存未命中时从磁盘读取并重新放回内存；
+ * 过期的元素同时从磁盘删除。磁盘日志在重新打开时回放，进程重启后缓存仍然是热的。
+ * 内存缓存必须是基于CacheAbstract的实现（LruCache、FifoCache、TwoQueuesCache等），
+ * 由构造方法传入的函数使用本类修改过移除监听的配置创建，内存缓存的移除监听在写入线程中同步执行，
+ * 保证被淘汰的元素在从内存消失前已经写入磁盘；原配置中的移除监听仍按removalExecutor异步回调。
+ * 写操作在本对象上加锁，内存和磁盘的修改作为一个整体完成；从磁盘读回的值只在内存中不存在时放入。
+ * @author 杨元
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class DiskTierCache<K, V> implements ICache<K, V>, Closeable {
+
+    /**
+     * 内存缓存
+     */
+    private ICache<K, V> memoryCache = null;
+
+    /**
+     * 磁盘存储
+     */
+    private DiskStore<K, V> diskStore = null;
+
+    /**
+     * 原配置中移除监听的通知分发
+     */
+    private RemovalDispatcher<K, V> removalDispatcher = null;
+
+    /**
+     * 只在内存中、尚未写入磁盘的key
+     */
+    private Set<K> dirtyKeys = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 磁盘命中计数
+     */
+    private LongAdder diskHitCount = new LongAdder();
+
+    /**
+     * 构造方法
+     * @param config  配置对象
+     * @param memoryCacheFactory  内存缓存创建函数，例如 cfg -> new LruCache<K, V>(cfg, new CacheNodeFactory<K, V>())
+     * @param diskStore  磁盘存储
+     */
+    public DiskTierCache(CacheConfig config, Function<CacheConfig, ICache<K, V>> memoryCacheFactory, DiskStore<K, V> diskStore){
+        this.diskStore = diskStore;
+        this.removalDispatcher = RemovalDispatcher.create(config);
+
+        CacheConfig memoryConfig = config.copy();
+        memoryConfig.setRemovalListener(new IRemovalListener<K, V>() {
+            @Override
+            public void onRemoval(K key, V value, RemovalCause cause) {
+                DiskTierCache.this.onRemoval(key, value, cause);
+            }
+        });
+        memoryConfig.setRemovalExecutor(Runnable::run);
+        this.memoryCache = memoryCacheFactory.apply(memoryConfig);
+    }
+
+    @Override
+    public synchronized void put(K key, V value) {
+        //先作废磁盘中的旧值，写入内存时被淘汰的新值会重新写入磁盘
+        this.diskStore.remove(key);
+        this.dirtyKeys.add(key);
+        this.memoryCache.put(key, value);
+    }
+
+    @Override
+    public V get(K key) {
+        V value = this.memoryCache.get(key);
+        if(value != null){
+            return value;
+        }
+
+        return this.promote(key);
+    }
+
+    @Override
+    public NodeAbstract<K, V> getNode(K key) {
+        NodeAbstract<K, V> node = this.memoryCache.getNode(key);
+        if(node != null){
+            return node;
+        }
+
+        return this.promote(key) == null ? null : this.memoryCache.getNode(key);
+    }
+
+    @Override
+    public synchronized void remove(K key) {
+        this.memoryCache.remove(key);
+        this.diskStore.remove(key);
+        this.dirtyKeys.remove(key);
+    }
+
+    @Override
+    public synchronized void putAll(Map<? extends K, ? extends V> map) {
+        //先作废磁盘中的旧值，批量写入后统一淘汰时溢出的新值不会被删除
+        for(K key : map.keySet()){
+            this.diskStore.remove(key);
+        }
+        this.dirtyKeys.addAll(map.keySet());
+        this.memoryCache.putAll(map);
+    }
+
+    @Override
+    public synchronized void removeAll(Collection<? extends K> keys) {
+        this.memoryCache.removeAll(keys);
+        for(K key : keys){
+            this.diskStore.remove(key);
+            this.dirtyKeys.remove(key);
+        }
+    }
+
+    /**
+     * 内存和磁盘中的元素都参与判断，磁盘中的值需要逐个反序列化
+     */
+    @Override
+    public synchronized void invalidateAll(BiPredicate<? super K, ? super V> predicate) {
+        this.memoryCache.invalidateAll((key, value) -> {
+            if(predicate.test(key, value)){
+                this.dirtyKeys.remove(key);
+                return true;
+            }
+            return false;
+        });
+        this.diskStore.removeIf(predicate);
+    }
+
+    @Override
+    public int size() {
+        return this.memoryCache.size();
+    }
+
+    /**
+     * 内存缓存的统计，磁盘命中单独由diskHitCount()统计
+     */
+    @Override
+    public CacheStats stats() {
+        return this.memoryCache.stats();
+    }
+
+    @Override
+    public synchronized void clear() {
+        this.memoryCache.clear();
+        try {
+            this.diskStore.clear();
+        } catch (IOException e) {
+            throw new IllegalStateException("disk store clear failed", e);
+        }
+        this.dirtyKeys.clear();
+        this.diskHitCount.reset();
+    }
+
+    /**
+     * 内存中尚未写入磁盘的元素写入磁盘后关闭磁盘存储
+     */
+    @Override
+    public void close() throws IOException {
+        this.flush();
+        this.diskStore.close();
+    }
+
+    /**
+     * 磁盘中的元素数量
+     * @return
+     */
+    public int diskSize() {
+        return this.diskStore.size();
+    }
+
+    /**
+     * 把内存中尚未写入磁盘的元素写入磁盘，元素仍保留在内存中
+     * 与写操作互斥，避免把已被覆盖的旧值写入磁盘
+     */
+    public synchronized void flush() {
+        for(K key : this.dirtyKeys){
+            this.dirtyKeys.remove(key);
+            NodeAbstract<K, V> node = this.memoryCache.getNode(key);
+            if(node != null && !this.diskStore.contains(key)){
+                this.diskStore.put(key, node.getValue());
+            }
+        }
+    }
+
+    /**
+     * 从磁盘读取并放入内存，与写操作互斥，避免读取期间被删除的元素重新放回内存
+     * 磁盘中的记录保留，再次被淘汰时无需重写
+     * @param key
+     * @return 当前值，内存和磁盘中都不存在时返回null
+     */
+    private synchronized V promote(K key) {
+        //加锁前其他线程可能已经放入内存
+        NodeAbstract<K, V> node = this.memoryCache.getNode(key);
+        if(node != null){
+            return node.getValue();
+        }
+
+        V value = this.diskStore.get(key);
+        if(value == null){
+            return null;
+        }
+        this.diskHitCount.increment();
+        V existing = this.memoryCache.putIfAbsent(key, value);
+        return existing != null ? existing : value;
+    }
+
+    /**
+     * 内存缓存移除元素时的处理：容量淘汰写入磁盘，过期同时从磁盘删除；被覆盖时新值仍是脏数据
+     * @param key
+     * @param value
+     * @param cause
+     */
+    private void onRemoval(K key, V value, RemovalCause cause) {
+        if(cause == RemovalCause.REPLACED){
+            this.removalDispatcher.dispatch(key, value, cause);
+            return;
+        }
+
+        if(cause == RemovalCause.SIZE){
+            if(!this.diskStore.contains(key)){
+                this.diskStore.put(key, value);
+            }
+        }else if(cause == RemovalCause.EXPIRED){
+            this.diskStore.remove(key);
+        }
+        this.dirtyKeys.remove(key);
+
+        this.removalDispatcher.dispatch(key, value, cause);
+    }
+
+    public ICache<K, V> getMemoryCache() {
+        return memoryCache;
+    }
+
+    /**
+     * 内存未命中、从磁盘读取到的次数
+     * @return
+     */
+    public long diskHitCount() {
+        return this.diskHitCount.sum();
+    }
+
+}
@@ -1,8 +1,7 @@
 package io.github.msyysoft.java.utiltools.cache4j.core.impl;
 
-import io.github.msyysoft.java.utiltools.cache4j.core.ICache;
+import io.github.msyysoft.java.utiltools.cache4j.core.CacheAbstract;
 import io.github.msyysoft.java.utiltools.cache4j.factory.INodeFactory;
-import io.github.msyysoft.java.utiltools.cache4j.linked.impl.CacheLinked;
 import io.github.msyysoft.java.utiltools.cache4j.node.NodeAbstract;
 
 import java.util.concurrent.atomic.AtomicInteger;
@@ -12,32 +11,7 @@ import java.util.concurrent.atomic.AtomicInteger;
  * @author 杨元
  *
  */
-public class FifoCache<K, V> implements ICache<K, V> {
-    
-    /**
-     * 链表
-     */
-    private CacheLinked<K, V> linked = null;
-    
-    /**
-     * 链表节点工厂
-     */
-    private INodeFactory<K, V> nodeFactory = null;
-    
-    /**
-     * 配置
-     */
-    private CacheConfig config = null;
-    
-    /**
-     * 未命中计数
-     */
-    private AtomicInteger missCount = new AtomicInteger();
-    
-    /**
-     * 命中计数
-     */
-    private AtomicInteger hitCount = new AtomicInteger();
+public class FifoCache<K, V> extends CacheAbstract<K, V> {
     
     /**
      * 构造方法
@@ -45,89 +19,49 @@ public class FifoCache<K, V> implements ICache<K, V> {
      * @param nodeFactory  链表节点对象创建工厂
      */
     public FifoCache(CacheConfig config, INodeFactory<K, V> nodeFactory){
-        this.config = config;
-        this.linked = new CacheLinked<K, V>();
-        this.nodeFactory = nodeFactory;
+        super(config, nodeFactory);
     }
     
     @Override
-    public void put(K key, V value) {
-        //创建链表节点
-        NodeAbstract<K, V> node = nodeFactory.createNode(key, value);
-        
-        synchronized (this) {
-            //防止元素重复
-            this.remove(key);
-            
-            //判断元素数量是否到达上限
-            if(this.size() == config.getMaxElement()){
-                //先进先出
-                linked.shift();
-            }
-            
-            linked.push(node);
-        }
+    protected void linkNode(NodeAbstract<K, V> node) {
+        linked.push(node);
     }
-
-    @Override
-    public V get(K key) {
-        
-        NodeAbstract<K, V> node = linked.get(key);
-        if(node != null){
-            this.hitCount.incrementAndGet();
-            return node.getValue();
-        }
-        
-        this.missCount.incrementAndGet();
-        return null;
-    }
-
-    @Override
-    public double hitRatio() {
-        double _hitCount = this.hitCount.doubleValue();
-        double _missCount = this.missCount.doubleValue();
-        double dividend = _hitCount + _missCount;
-        
-        if(dividend == 0){
-            return 0.0d;
-        }
-        
-        return _hitCount / dividend;
-    }
-
-    @Override
-    public void clear() {
-        this.linked = new CacheLinked<K, V>();
-        this.hitCount.set(0);
-        this.missCount.set(0);
-    }
-
+    
     @Override
-    public int size() {
-        return this.linked.size();
+    protected NodeAbstract<K, V> unlinkVictim() {
+        //先进先出
+        return linked.shift();
     }
-
+    
     @Override
-    public NodeAbstract<K, V> getNode(K key) {
-        return linked.get(key);
+    protected void onAccess(NodeAbstract<K, V> node) {
+        //命中不影响淘汰顺序
     }
-
+    
     @Override
-    public void remove(K key) {
-        synchronized (this) {
-            linked.remove(key);
-        }
+    protected boolean isHeadHottest() {
+        //链表尾是最新写入的元素，最后被淘汰
+        return false;
     }
-
+    
+    /**
+     * 未命中次数
+     * @return 统计快照中的数值，修改返回的对象不影响统计
+     * @deprecated 使用 {@link #stats()}
+     */
+    @Deprecated
     public AtomicInteger getMissCount() {
-        return missCount;
+        return new AtomicInteger((int) this.stats().getMissCount());
     }
 
+    /**
+     * 命中次数
+     * @return 统计快照中的数值，修改返回的对象不影响统计
+     * @deprecated 使用 {@link #stats()}
+     */
+    @Deprecated
     public AtomicInteger getHitCount() {
-        return hitCount;
+        return new AtomicInteger((int) this.stats().getHitCount());
     }
-
-    
-    
     
 }
@@ -0,0 +1,287 @@
+package io.github.msyysoft.java.utiltools.cache4j.core.impl;
+
+import io.github.msyysoft.java.utiltools.cache4j.core.CacheAbstract;
+import io.github.msyysoft.java.utiltools.cache4j.core.ICache;
+import io.github.msyysoft.java.utiltools.cache4j.node.NodeAbstract;
+import io.github.msyysoft.java.utiltools.cache4j.node.impl.CacheNode;
+import io.github.msyysoft.java.utiltools.cache4j.stats.CacheStats;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * 两级缓存：每个线程私有的L1 + 共享的L2
+ * L1是按key的hash直接映射的小数组，保存L2节点的引用和读取时的版本号，命中时不加锁，只读取一次节点的volatile版本号。
+ * L2覆盖、删除、淘汰、过期或清空元素时会把节点标记为作废，原位替换值时递增版本号，L1在下次读取时发现版本号不一致即丢弃副本。
+ * 写操作直接交给L2，不需要通知其他线程。
+ * L1命中不经过L2，为了让L2的淘汰算法知道热点数据仍在使用，同一个副本每命中revalidateInterval次访问一次L2，
+ * 配置了过期时间时，已过期的元素最多还会从L1读到revalidateInterval次。
+ * L2必须是节点为CacheNode、并且移除时会作废节点的实现：基于CacheAbstract的LruCache、FifoCache，
+ * 以及由它们组成的TwoQueuesCache、SegmentLruCache，或包装它们的LoadingCache、NearCache、DiskTierCache，其他实现在构造时拒绝。
+ * @author 杨元
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class HierarchicalCache<K, V> implements ICache<K, V> {
+
+    /**
+     * 默认L1槽位数
+     */
+    public static final int DEFAULT_L1_CAPACITY = 64;
+
+    /**
+     * 默认访问L2的间隔命中次数
+     */
+    public static final int DEFAULT_REVALIDATE_INTERVAL = 64;
+
+    /**
+     * 共享的L2
+     */
+    private ICache<K, V> l2 = null;
+
+    /**
+     * 每个线程的L1
+     */
+    private ThreadLocal<L1Entry<K, V>[]> l1 = null;
+
+    /**
+     * L1槽位掩码
+     */
+    private int mask;
+
+    /**
+     * 访问L2的间隔命中次数
+     */
+    private int revalidateInterval;
+
+    /**
+     * L1命中次数
+     */
+    private LongAdder l1HitCount = new LongAdder();
+
+    /**
+     * 使用默认L1大小的构造方法
+     * @param l2  共享缓存
+     */
+    public HierarchicalCache(ICache<K, V> l2){
+        this(l2, DEFAULT_L1_CAPACITY, DEFAULT_REVALIDATE_INTERVAL);
+    }
+
+    /**
+     * 构造方法
+     * @param l2  共享缓存
+     * @param l1Capacity  每个线程的L1槽位数，向上取2的幂
+     * @param revalidateInterval  同一个副本每命中多少次访问一次L2
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public HierarchicalCache(ICache<K, V> l2, int l1Capacity, int revalidateInterval){
+        if(l1Capacity <= 0 || revalidateInterval <= 0){
+            throw new IllegalArgumentException("l1Capacity and revalidateInterval must be greater than 0");
+        }
+        if(!isSupported(l2)){
+            throw new IllegalArgumentException(l2.getClass().getName() + " does not retire removed nodes and cannot be used as L2");
+        }
+        this.l2 = l2;
+        this.revalidateInterval = revalidateInterval;
+
+        final int capacity = Integer.highestOneBit(Math.max(l1Capacity * 2 - 1, 1));
+        this.mask = capacity - 1;
+        this.l1 = ThreadLocal.withInitial(() -> new L1Entry[capacity]);
+    }
+
+    @Override
+    public V get(K key) {
+        L1Entry<K, V>[] entries = this.l1.get();
+        int index = this.indexOf(key);
+        L1Entry<K, V> entry = entries[index];
+
+        if(entry != null && entry.version == entry.node.getVersion() && entry.key.equals(key)){
+            if(++entry.hits < this.revalidateInterval){
+                this.l1HitCount.increment();
+                return entry.node.getValue();
+            }
+            //定期访问L2，刷新淘汰顺序并回收过期元素
+            entries[index] = null;
+        }
+
+        V value = this.l2.get(key);
+        if(value != null){
+            this.fill(entries, index, key, value);
+        }
+        return value;
+    }
+
+    @Override
+    public void put(K key, V value) {
+        this.l2.put(key, value);
+    }
+
+    @Override
+    public NodeAbstract<K, V> getNode(K key) {
+        return this.l2.getNode(key);
+    }
+
+    @Override
+    public void remove(K key) {
+        this.l2.remove(key);
+    }
+
+    @Override
+    public Map<K, V> getAll(Collection<? extends K> keys) {
+        return this.l2.getAll(keys);
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> map) {
+        this.l2.putAll(map);
+    }
+
+    @Override
+    public void removeAll(Collection<? extends K> keys) {
+        this.l2.removeAll(keys);
+    }
+
+    @Override
+    public void invalidateAll(BiPredicate<? super K, ? super V> predicate) {
+        this.l2.invalidateAll(predicate);
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        return this.l2.putIfAbsent(key, value);
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        return this.l2.replace(key, oldValue, newValue);
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        V value = this.get(key);
+        return value != null ? value : this.l2.computeIfAbsent(key, mappingFunction);
+    }
+
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        return this.l2.compute(key, remappingFunction);
+    }
+
+    @Override
+    public int size() {
+        return this.l2.size();
+    }
+
+    /**
+     * L2的统计加上L1命中次数
+     */
+    @Override
+    public CacheStats stats() {
+        long l1Hits = this.l1HitCount.sum();
+        return this.l2.stats().plus(new CacheStats(l1Hits, 0, 0, 0, 0, new long[0], 0));
+    }
+
+    /**
+     * 清空L2，各线程的L1副本随之作废
+     */
+    @Override
+    public void clear() {
+        this.l2.clear();
+        this.l1HitCount.reset();
+    }
+
+    /**
+     * L1命中次数
+     * @return
+     */
+    public long l1HitCount() {
+        return this.l1HitCount.sum();
+    }
+
+    public ICache<K, V> getL2() {
+        return l2;
+    }
+
+    /**
+     * 从L2取得节点并放入L1，读取值前后版本号一致且节点仍是当前值时才放入
+     * @param entries
+     * @param index
+     * @param key
+     * @param value
+     */
+    private void fill(L1Entry<K, V>[] entries, int index, K key, V value) {
+        NodeAbstract<K, V> node = this.l2.getNode(key);
+        if(!(node instanceof CacheNode)){
+            return;
+        }
+
+        CacheNode<K, V> cacheNode = (CacheNode<K, V>) node;
+        long version = cacheNode.getVersion();
+        if(version == CacheNode.RETIRED || cacheNode.getValue() != value || cacheNode.getVersion() != version){
+            return;
+        }
+        entries[index] = new L1Entry<K, V>(key, cacheNode, version);
+    }
+
+    /**
+     * L2移除元素时是否作废节点，否则L1无法发现副本已过时
+     * @param cache
+     * @return
+     */
+    private static boolean isSupported(ICache<?, ?> cache) {
+        if(cache instanceof CacheAbstract || cache instanceof TwoQueuesCache || cache instanceof SegmentLruCache){
+            return true;
+        }
+        if(cache instanceof LoadingCache){
+            return isSupported(((LoadingCache<?, ?>) cache).getCache());
+        }
+        if(cache instanceof NearCache){
+            return isSupported(((NearCache<?, ?>) cache).getCache());
+        }
+        if(cache instanceof DiskTierCache){
+            return isSupported(((DiskTierCache<?, ?>) cache).getMemoryCache());
+        }
+        if(cache instanceof HierarchicalCache){
+            return isSupported(((HierarchicalCache<?, ?>) cache).getL2());
+        }
+        return false;
+    }
+
+    private int indexOf(K key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & this.mask;
+    }
+
+    /**
+     * L1副本，只被所属线程访问
+     */
+    private static class L1Entry<K, V> {
+
+        private final K key;
+
+        private final CacheNode<K, V> node;
+
+        /**
+         * 放入L1时节点的版本号
+         */
+        private final long version;
+
+        /**
+         * 放入L1后的命中次数
+         */
+        private int hits;
+
+        private L1Entry(K key, CacheNode<K, V> node, long version) {
+            this.key = key;
+            this.node = node;
+            this.version = version;
+        }
+
+    }
+
+}
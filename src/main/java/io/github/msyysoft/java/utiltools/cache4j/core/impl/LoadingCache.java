@@ -0,0 +1,440 @@
+package io.github.msyysoft.java.utiltools.cache4j.core.impl;
+
+import io.github.msyysoft.java.utiltools.cache4j.core.ICache;
+import io.github.msyysoft.java.utiltools.cache4j.core.ICacheLoader;
+import io.github.msyysoft.java.utiltools.cache4j.core.IRefreshable;
+import io.github.msyysoft.java.utiltools.cache4j.exception.CacheLoadException;
+import io.github.msyysoft.java.utiltools.cache4j.node.NodeAbstract;
+import io.github.msyysoft.java.utiltools.cache4j.node.impl.CacheNode;
+import io.github.msyysoft.java.utiltools.cache4j.stats.CacheStats;
+import io.github.msyysoft.java.utiltools.cache4j.stats.IStatsCounter;
+import io.github.msyysoft.java.utiltools.cache4j.stats.impl.ConcurrentStatsCounter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * 自动加载缓存
+ * 包装任意缓存实现，未命中时调用加载函数取值并放入缓存。
+ * 同一个key同时只有一次加载在执行，其他并发调用方等待同一个加载结果，避免缓存击穿。
+ * 配置了refreshAfterWrite时，超过刷新时间的元素仍返回旧值，同时提交到后台线程池重新加载，
+ * 加载完成后直接替换节点上的值，请求线程不会因为刷新而阻塞。刷新要求节点为CacheNode。
+ * 被包装的缓存实现了IRefreshable时，由其替换值并重新计算权重。
+ * 被包装的缓存为NearCache时，加载结果通过putLocal()只放入本地缓存，不通知其他进程失效。
+ * @author 杨元
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class LoadingCache<K, V> implements ICache<K, V> {
+
+    /**
+     * 被包装的缓存
+     */
+    private ICache<K, V> cache = null;
+
+    /**
+     * 被包装的缓存为NearCache时的引用，加载结果只回填本地
+     */
+    private NearCache<K, V> nearCache = null;
+
+    /**
+     * 被包装的缓存实现IRefreshable时的引用，刷新时原位替换值
+     */
+    private IRefreshable<K, V> refreshable = null;
+
+    /**
+     * 加载函数
+     */
+    private ICacheLoader<K, V> loader = null;
+
+    /**
+     * 正在执行的加载
+     */
+    private ConcurrentHashMap<K, CompletableFuture<V>> loadingMap = new ConcurrentHashMap<K, CompletableFuture<V>>();
+
+    /**
+     * 加载统计计数器，命中和淘汰由被包装的缓存统计
+     */
+    private IStatsCounter loadStatsCounter = null;
+
+    /**
+     * 写入后自动刷新时间，纳秒，0表示不刷新
+     */
+    private long refreshAfterWriteNanos = 0L;
+
+    /**
+     * 后台刷新线程池
+     */
+    private Executor refreshExecutor = null;
+
+    /**
+     * 构造方法
+     * @param cache  被包装的缓存
+     * @param loader  加载函数
+     */
+    @SuppressWarnings("unchecked")
+    public LoadingCache(ICache<K, V> cache, ICacheLoader<K, V> loader){
+        this.cache = cache;
+        //NearCache<K, V>和IRefreshable<K, V>的实现类同时实现ICache<K, V>，泛型参数与cache相同
+        if(cache instanceof NearCache){
+            this.nearCache = (NearCache<K, V>) cache;
+        }
+        if(cache instanceof IRefreshable){
+            this.refreshable = (IRefreshable<K, V>) cache;
+        }
+        this.loader = loader;
+        this.loadStatsCounter = new ConcurrentStatsCounter();
+    }
+
+    /**
+     * 构造方法
+     * @param cache  被包装的缓存，需使用同一配置创建以便在节点上记录写入时间
+     * @param loader  加载函数
+     * @param config  配置对象，读取refreshAfterWrite和refreshExecutor
+     */
+    public LoadingCache(ICache<K, V> cache, ICacheLoader<K, V> loader, CacheConfig config){
+        this(cache, loader);
+        this.loadStatsCounter = config.createStatsCounter();
+        this.refreshAfterWriteNanos = TimeUnit.MILLISECONDS.toNanos(config.getRefreshAfterWrite());
+        this.refreshExecutor = config.getRefreshExecutor() != null ? config.getRefreshExecutor() : ForkJoinPool.commonPool();
+    }
+
+    @Override
+    public void put(K key, V value) {
+        this.cache.put(key, value);
+    }
+
+    /**
+     * 获取缓存数据，未命中时加载
+     * @param key  键
+     * @return 加载函数返回null时返回null
+     * @throws CacheLoadException  加载函数抛出异常
+     */
+    @Override
+    public V get(K key) {
+        V value = this.cache.get(key);
+        if(value != null){
+            if(this.refreshAfterWriteNanos > 0){
+                this.refreshIfNeeded(key);
+            }
+            return value;
+        }
+
+        CompletableFuture<V> future = new CompletableFuture<V>();
+        CompletableFuture<V> loading = this.loadingMap.putIfAbsent(key, future);
+        if(loading != null){
+            //其他线程正在加载，等待其结果
+            return this.waitFor(loading);
+        }
+
+        try {
+            value = this.load(key);
+            future.complete(value);
+            return value;
+        } catch (Throwable e) {
+            //Error也必须完成future，否则等待中的线程永远阻塞
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.loadingMap.remove(key, future);
+        }
+    }
+
+    /**
+     * 批量获取缓存数据，未命中的key通过加载函数的loadAll()一次加载
+     * @param keys  键集合
+     * @return 按传入顺序排列的结果，加载不到的键不放入结果
+     * @throws CacheLoadException  加载函数抛出异常
+     */
+    @Override
+    public Map<K, V> getAll(Collection<? extends K> keys) {
+        Map<K, V> result = new LinkedHashMap<K, V>();
+        Map<K, CompletableFuture<V>> waitMap = new LinkedHashMap<K, CompletableFuture<V>>();
+        Map<K, CompletableFuture<V>> ownMap = new HashMap<K, CompletableFuture<V>>();
+
+        for(K key : keys){
+            if(result.containsKey(key) || waitMap.containsKey(key)){
+                continue;
+            }
+            V value = this.cache.get(key);
+            if(value != null){
+                result.put(key, value);
+                continue;
+            }
+
+            CompletableFuture<V> future = new CompletableFuture<V>();
+            CompletableFuture<V> loading = this.loadingMap.putIfAbsent(key, future);
+            if(loading == null){
+                ownMap.put(key, future);
+                waitMap.put(key, future);
+            }else{
+                waitMap.put(key, loading);
+            }
+        }
+
+        //由本线程负责的key批量加载
+        if(!ownMap.isEmpty()){
+            this.loadAll(ownMap);
+        }
+
+        for(Map.Entry<K, CompletableFuture<V>> entry : waitMap.entrySet()){
+            V value = this.waitFor(entry.getValue());
+            if(value != null){
+                result.put(entry.getKey(), value);
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public NodeAbstract<K, V> getNode(K key) {
+        return this.cache.getNode(key);
+    }
+
+    @Override
+    public void remove(K key) {
+        this.cache.remove(key);
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        return this.cache.putIfAbsent(key, value);
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        return this.cache.replace(key, oldValue, newValue);
+    }
+
+    /**
+     * 使用传入的计算函数，不经过加载函数
+     */
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        return this.cache.computeIfAbsent(key, mappingFunction);
+    }
+
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        return this.cache.compute(key, remappingFunction);
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> map) {
+        this.cache.putAll(map);
+    }
+
+    @Override
+    public void removeAll(Collection<? extends K> keys) {
+        this.cache.removeAll(keys);
+    }
+
+    @Override
+    public void invalidateAll(BiPredicate<? super K, ? super V> predicate) {
+        this.cache.invalidateAll(predicate);
+    }
+
+    @Override
+    public int size() {
+        return this.cache.size();
+    }
+
+    /**
+     * 被包装缓存的统计加上加载统计
+     */
+    @Override
+    public CacheStats stats() {
+        return this.cache.stats().plus(this.loadStatsCounter.snapshot());
+    }
+
+    @Override
+    public void clear() {
+        this.cache.clear();
+        this.loadStatsCounter.reset();
+    }
+
+    /**
+     * 平均加载耗时，纳秒
+     * @return
+     */
+    public double averageLoadPenalty() {
+        return this.loadStatsCounter.snapshot().averageLoadPenalty();
+    }
+
+    /**
+     * 元素超过刷新时间时提交后台刷新，同一节点同时只有一次刷新
+     * @param key
+     */
+    private void refreshIfNeeded(final K key) {
+        NodeAbstract<K, V> node = this.cache.getNode(key);
+        if(!(node instanceof CacheNode)){
+            return;
+        }
+
+        final CacheNode<K, V> cacheNode = (CacheNode<K, V>) node;
+        if(System.nanoTime() - cacheNode.getWriteTime() < this.refreshAfterWriteNanos || !cacheNode.tryStartRefresh()){
+            return;
+        }
+
+        try {
+            this.refreshExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    refresh(key, cacheNode);
+                }
+            });
+        } catch (RuntimeException e) {
+            //线程池拒绝，下次访问时重试
+            cacheNode.finishRefresh();
+        }
+    }
+
+    /**
+     * 后台重新加载，成功后替换节点上的值；加载失败时保留旧值
+     * @param key
+     * @param node
+     */
+    private void refresh(K key, CacheNode<K, V> node) {
+        long start = System.nanoTime();
+        try {
+            V value = this.loader.load(key);
+            this.loadStatsCounter.recordLoadSuccess(System.nanoTime() - start);
+
+            //节点在刷新期间已被删除或替换时丢弃结果
+            if(this.cache.getNode(key) != node){
+                return;
+            }
+            if(value == null){
+                this.cache.remove(key);
+                return;
+            }
+            if(this.refreshable != null){
+                this.refreshable.refreshValue(node, value);
+                return;
+            }
+            node.setValue(value);
+            node.setWriteTime(System.nanoTime());
+        } catch (Exception e) {
+            this.loadStatsCounter.recordLoadFailure(System.nanoTime() - start);
+        } finally {
+            node.finishRefresh();
+        }
+    }
+
+    /**
+     * 加载结果放入缓存，NearCache只放入本地缓存
+     * @param key
+     * @param value
+     */
+    private void fill(K key, V value) {
+        if(this.nearCache != null){
+            this.nearCache.putLocal(key, value);
+        }else{
+            this.cache.put(key, value);
+        }
+    }
+
+    /**
+     * 加载单个元素并放入缓存
+     * @param key
+     * @return
+     */
+    private V load(K key) {
+        long start = System.nanoTime();
+        try {
+            V value = this.loader.load(key);
+            this.loadStatsCounter.recordLoadSuccess(System.nanoTime() - start);
+            if(value != null){
+                this.fill(key, value);
+            }
+            return value;
+        } catch (Exception e) {
+            this.loadStatsCounter.recordLoadFailure(System.nanoTime() - start);
+            throw e instanceof CacheLoadException ? (CacheLoadException) e : new CacheLoadException(e);
+        }
+    }
+
+    /**
+     * 批量加载并放入缓存，完成本线程登记的所有加载
+     * @param ownMap  本线程负责加载的key及其结果
+     */
+    private void loadAll(Map<K, CompletableFuture<V>> ownMap) {
+        List<K> keys = new ArrayList<K>(ownMap.keySet());
+        long start = System.nanoTime();
+        try {
+            Map<K, V> loaded = this.loader.loadAll(keys);
+            this.loadStatsCounter.recordLoadSuccess(System.nanoTime() - start);
+            for(K key : keys){
+                V value = loaded == null ? null : loaded.get(key);
+                if(value != null){
+                    this.fill(key, value);
+                }
+                ownMap.get(key).complete(value);
+            }
+        } catch (Exception e) {
+            this.loadStatsCounter.recordLoadFailure(System.nanoTime() - start);
+            CacheLoadException ex = e instanceof CacheLoadException ? (CacheLoadException) e : new CacheLoadException(e);
+            for(CompletableFuture<V> future : ownMap.values()){
+                future.completeExceptionally(ex);
+            }
+        } catch (Error e) {
+            this.loadStatsCounter.recordLoadFailure(System.nanoTime() - start);
+            for(CompletableFuture<V> future : ownMap.values()){
+                future.completeExceptionally(e);
+            }
+            throw e;
+        } finally {
+            for(Map.Entry<K, CompletableFuture<V>> entry : ownMap.entrySet()){
+                this.loadingMap.remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * 等待其他线程的加载结果
+     * @param future
+     * @return
+     */
+    private V waitFor(CompletableFuture<V> future) {
+        boolean interrupted = false;
+        try {
+            while(true){
+                try {
+                    return future.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if(cause instanceof Error){
+                        throw (Error) cause;
+                    }
+                    throw cause instanceof CacheLoadException ? (CacheLoadException) cause : new CacheLoadException(cause);
+                }
+            }
+        } finally {
+            if(interrupted){
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public ICache<K, V> getCache() {
+        return cache;
+    }
+
+}
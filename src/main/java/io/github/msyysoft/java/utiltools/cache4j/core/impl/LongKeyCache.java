@@ -0,0 +1,538 @@
+package io.github.msyysoft.java.utiltools.cache4j.core.impl;
+
+import io.github.msyysoft.java.utiltools.cache4j.core.ICache;
+import io.github.msyysoft.java.utiltools.cache4j.core.RemovalCause;
+import io.github.msyysoft.java.utiltools.cache4j.core.RemovalDispatcher;
+import io.github.msyysoft.java.utiltools.cache4j.factory.impl.CacheNodeFactory;
+import io.github.msyysoft.java.utiltools.cache4j.node.NodeAbstract;
+import io.github.msyysoft.java.utiltools.cache4j.stats.CacheStats;
+import io.github.msyysoft.java.utiltools.cache4j.stats.IStatsCounter;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.BiPredicate;
+
+/**
+ * long类型key的缓存实现
+ * 元素存放在按容量预分配的数组槽位中，前驱、后继用槽位下标表示，不创建链表节点对象；
+ * 查找使用开放寻址（线性探测）的int数组哈希表，key不装箱，get(long)、put(long, V)不产生任何临时对象。
+ * 每个元素的固定开销约为key 8字节 + 值引用 + 前驱/后继下标 8字节 + 哈希表2个int槽位。
+ * 支持FIFO、LRU、TwoQueues三种淘汰算法，语义与FifoCache、LruCache、TwoQueuesCache一致。
+ * 容量在创建时固定，maxElement必须大于0。
+ * @author 杨元
+ *
+ * @param <V>
+ */
+public class LongKeyCache<V> implements ICache<Long, V> {
+
+    /**
+     * 淘汰算法
+     */
+    public enum Policy {
+        FIFO, LRU, TWO_QUEUES
+    }
+
+    /**
+     * 空下标
+     */
+    private static final int NIL = -1;
+
+    /**
+     * fifo队列序号
+     */
+    private static final int FIFO_QUEUE = 0;
+
+    /**
+     * lru队列序号
+     */
+    private static final int LRU_QUEUE = 1;
+
+    /**
+     * 热点数据阈值
+     */
+    private static final int HOT_LIMIT = 2;
+
+    /**
+     * 淘汰算法
+     */
+    private Policy policy;
+
+    /**
+     * 各槽位的key
+     */
+    private long[] keys;
+
+    /**
+     * 各槽位的值
+     */
+    private Object[] values;
+
+    /**
+     * 各槽位的前驱槽位
+     */
+    private int[] prev;
+
+    /**
+     * 各槽位的后继槽位，空闲槽位通过它串成空闲链表
+     */
+    private int[] next;
+
+    /**
+     * 各槽位所在的队列
+     */
+    private byte[] queue;
+
+    /**
+     * 各槽位的使用计数，仅TwoQueues使用
+     */
+    private byte[] usedCount;
+
+    /**
+     * 哈希表，存放槽位下标+1，0表示空
+     */
+    private int[] table;
+
+    /**
+     * 哈希表下标掩码
+     */
+    private int mask;
+
+    /**
+     * 空闲槽位链表头
+     */
+    private int freeHead;
+
+    /**
+     * 各队列头部槽位
+     */
+    private int[] heads = new int[2];
+
+    /**
+     * 各队列尾部槽位
+     */
+    private int[] tails = new int[2];
+
+    /**
+     * 各队列元素数量
+     */
+    private int[] sizes = new int[2];
+
+    /**
+     * 各队列元素上限
+     */
+    private int[] limits = new int[2];
+
+    /**
+     * 元素数量，size()不加锁读取
+     */
+    private volatile int count;
+
+    /**
+     * 移除通知分发
+     */
+    private RemovalDispatcher<Long, V> removalDispatcher = null;
+
+    /**
+     * 统计计数器
+     */
+    private IStatsCounter statsCounter = null;
+
+    /**
+     * 构造方法
+     * @param config  配置对象，maxElement决定数组容量
+     * @param policy  淘汰算法
+     */
+    public LongKeyCache(CacheConfig config, Policy policy){
+        int capacity = config.getMaxElement();
+        if(capacity <= 0){
+            throw new IllegalArgumentException("maxElement must be greater than 0");
+        }
+        this.policy = policy;
+        this.removalDispatcher = RemovalDispatcher.create(config);
+        this.statsCounter = config.createStatsCounter();
+
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+        this.prev = new int[capacity];
+        this.next = new int[capacity];
+        this.queue = new byte[capacity];
+        if(policy == Policy.TWO_QUEUES){
+            this.usedCount = new byte[capacity];
+        }
+
+        int tableSize = Integer.highestOneBit(Math.max(capacity * 2 - 1, 1)) << 1;
+        this.table = new int[tableSize];
+        this.mask = tableSize - 1;
+
+        //分配元素上限，与TwoQueuesCache一致，fifo多分一个
+        if(policy == Policy.TWO_QUEUES){
+            this.limits[LRU_QUEUE] = capacity / 2;
+            this.limits[FIFO_QUEUE] = capacity - capacity / 2;
+        }else{
+            this.limits[FIFO_QUEUE] = capacity;
+        }
+
+        this.reset();
+    }
+
+    /**
+     * 缓存
+     * @param key  键
+     * @param value  值
+     */
+    public synchronized void put(long key, V value) {
+        //防止元素重复
+        int slot = this.find(key);
+        if(slot != NIL){
+            this.removeSlot(slot, RemovalCause.REPLACED);
+        }
+
+        //新元素放入fifo队列（FIFO、LRU只有这一个队列）
+        if(this.sizes[FIFO_QUEUE] == this.limits[FIFO_QUEUE]){
+            this.evict(FIFO_QUEUE);
+        }
+        if(this.limits[FIFO_QUEUE] == 0){
+            return;
+        }
+
+        slot = this.freeHead;
+        this.freeHead = this.next[slot];
+        this.keys[slot] = key;
+        this.values[slot] = value;
+        if(this.usedCount != null){
+            this.usedCount[slot] = 0;
+        }
+        this.insertIndex(key, slot);
+        this.linkFirst(FIFO_QUEUE, slot);
+        this.count++;
+    }
+
+    /**
+     * 获取缓存数据
+     * @param key  键
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized V get(long key) {
+        int slot = this.find(key);
+        if(slot == NIL){
+            this.statsCounter.recordMisses(1);
+            return null;
+        }
+
+        this.statsCounter.recordHits(1);
+        this.onAccess(slot);
+        return (V) this.values[slot];
+    }
+
+    /**
+     * 是否包含，不影响淘汰顺序和命中计数
+     * @param key
+     * @return
+     */
+    public synchronized boolean containsKey(long key) {
+        return this.find(key) != NIL;
+    }
+
+    /**
+     * 移除缓存数据
+     * @param key
+     */
+    public synchronized void remove(long key) {
+        int slot = this.find(key);
+        if(slot != NIL){
+            this.removeSlot(slot, RemovalCause.EXPLICIT);
+        }
+    }
+
+    @Override
+    public void put(Long key, V value) {
+        this.put(key.longValue(), value);
+    }
+
+    @Override
+    public V get(Long key) {
+        return this.get(key.longValue());
+    }
+
+    /**
+     * 获取缓存节点对象
+     * 元素不以节点形式存储，返回的是新建的独立节点，修改它不会影响缓存
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public synchronized NodeAbstract<Long, V> getNode(Long key) {
+        int slot = this.find(key.longValue());
+        if(slot == NIL){
+            return null;
+        }
+        return new CacheNodeFactory<Long, V>().createNode(key, (V) this.values[slot]);
+    }
+
+    @Override
+    public void remove(Long key) {
+        this.remove(key.longValue());
+    }
+
+    /**
+     * 批量获取，只加一次锁
+     */
+    @Override
+    public synchronized Map<Long, V> getAll(Collection<? extends Long> keys) {
+        return ICache.super.getAll(keys);
+    }
+
+    /**
+     * 批量缓存，只加一次锁
+     */
+    @Override
+    public synchronized void putAll(Map<? extends Long, ? extends V> map) {
+        ICache.super.putAll(map);
+    }
+
+    /**
+     * 批量移除，只加一次锁
+     */
+    @Override
+    public synchronized void removeAll(Collection<? extends Long> keys) {
+        ICache.super.removeAll(keys);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public synchronized void invalidateAll(BiPredicate<? super Long, ? super V> predicate) {
+        for(int q = FIFO_QUEUE; q <= LRU_QUEUE; q++){
+            int slot = this.heads[q];
+            while(slot != NIL){
+                int next = this.next[slot];
+                if(predicate.test(this.keys[slot], (V) this.values[slot])){
+                    this.removeSlot(slot, RemovalCause.EXPLICIT);
+                }
+                slot = next;
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return this.count;
+    }
+
+    @Override
+    public CacheStats stats() {
+        return this.statsCounter.snapshot();
+    }
+
+    @Override
+    public void clear() {
+        synchronized (this) {
+            this.reset();
+        }
+        this.statsCounter.reset();
+    }
+
+    /**
+     * 淘汰算法
+     * @return
+     */
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * 清空所有数组，重建空闲链表
+     */
+    private void reset() {
+        Arrays.fill(this.values, null);
+        Arrays.fill(this.table, 0);
+        for(int i = 0; i < this.next.length; i++){
+            this.next[i] = i + 1 < this.next.length ? i + 1 : NIL;
+        }
+        this.freeHead = 0;
+        Arrays.fill(this.heads, NIL);
+        Arrays.fill(this.tails, NIL);
+        Arrays.fill(this.sizes, 0);
+        this.count = 0;
+    }
+
+    /**
+     * 元素被命中后按淘汰算法调整位置
+     * @param slot
+     */
+    private void onAccess(int slot) {
+        if(this.policy == Policy.LRU){
+            this.moveToFirst(FIFO_QUEUE, slot);
+            return;
+        }
+        if(this.policy == Policy.TWO_QUEUES){
+            if(this.queue[slot] == LRU_QUEUE){
+                this.moveToFirst(LRU_QUEUE, slot);
+            }else if(++this.usedCount[slot] >= HOT_LIMIT){
+                //热点数据转移到lru
+                this.unlink(slot);
+                if(this.sizes[LRU_QUEUE] == this.limits[LRU_QUEUE]){
+                    this.evict(LRU_QUEUE);
+                }
+                if(this.limits[LRU_QUEUE] == 0){
+                    this.release(slot, RemovalCause.SIZE);
+                    return;
+                }
+                this.linkFirst(LRU_QUEUE, slot);
+            }
+        }
+    }
+
+    /**
+     * 淘汰队列尾部元素
+     * @param q
+     */
+    private void evict(int q) {
+        int slot = this.tails[q];
+        if(slot != NIL){
+            this.unlink(slot);
+            this.release(slot, RemovalCause.SIZE);
+        }
+    }
+
+    /**
+     * 移出队列并释放槽位
+     * @param slot
+     * @param cause
+     */
+    private void removeSlot(int slot, RemovalCause cause) {
+        this.unlink(slot);
+        this.release(slot, cause);
+    }
+
+    /**
+     * 删除索引，槽位放回空闲链表，分发移除通知
+     * @param slot
+     * @param cause
+     */
+    @SuppressWarnings("unchecked")
+    private void release(int slot, RemovalCause cause) {
+        long key = this.keys[slot];
+        Object value = this.values[slot];
+        this.deleteIndex(key);
+        this.values[slot] = null;
+        this.next[slot] = this.freeHead;
+        this.freeHead = slot;
+        this.count--;
+
+        if(cause.wasEvicted()){
+            this.statsCounter.recordEviction(cause, 1);
+        }
+        this.removalDispatcher.dispatch(key, (V) value, cause);
+    }
+
+    /**
+     * 放到队列头部
+     * @param q
+     * @param slot
+     */
+    private void linkFirst(int q, int slot) {
+        int head = this.heads[q];
+        this.queue[slot] = (byte) q;
+        this.prev[slot] = NIL;
+        this.next[slot] = head;
+        if(head == NIL){
+            this.tails[q] = slot;
+        }else{
+            this.prev[head] = slot;
+        }
+        this.heads[q] = slot;
+        this.sizes[q]++;
+    }
+
+    /**
+     * 从所在队列中移出
+     * @param slot
+     */
+    private void unlink(int slot) {
+        int q = this.queue[slot];
+        int p = this.prev[slot];
+        int n = this.next[slot];
+        if(p == NIL){
+            this.heads[q] = n;
+        }else{
+            this.next[p] = n;
+        }
+        if(n == NIL){
+            this.tails[q] = p;
+        }else{
+            this.prev[n] = p;
+        }
+        this.sizes[q]--;
+    }
+
+    private void moveToFirst(int q, int slot) {
+        if(this.heads[q] != slot){
+            this.unlink(slot);
+            this.linkFirst(q, slot);
+        }
+    }
+
+    /**
+     * 查找key所在槽位
+     * @param key
+     * @return 不存在时返回NIL
+     */
+    private int find(long key) {
+        int i = hash(key) & this.mask;
+        int entry;
+        while((entry = this.table[i]) != 0){
+            if(this.keys[entry - 1] == key){
+                return entry - 1;
+            }
+            i = (i + 1) & this.mask;
+        }
+        return NIL;
+    }
+
+    private void insertIndex(long key, int slot) {
+        int i = hash(key) & this.mask;
+        while(this.table[i] != 0){
+            i = (i + 1) & this.mask;
+        }
+        this.table[i] = slot + 1;
+    }
+
+    /**
+     * 删除索引，后续元素向前回移，不使用删除标记
+     * @param key
+     */
+    private void deleteIndex(long key) {
+        int i = hash(key) & this.mask;
+        while(this.keys[this.table[i] - 1] != key){
+            i = (i + 1) & this.mask;
+        }
+
+        int j = i;
+        while(true){
+            j = (j + 1) & this.mask;
+            int entry = this.table[j];
+            if(entry == 0){
+                break;
+            }
+            //j上的元素理想位置不在(i, j]区间内时，可以移到i
+            int ideal = hash(this.keys[entry - 1]) & this.mask;
+            if(((j - ideal) & this.mask) >= ((j - i) & this.mask)){
+                this.table[i] = entry;
+                i = j;
+            }
+        }
+        this.table[i] = 0;
+    }
+
+    /**
+     * 64位key打散为32位哈希
+     * @param key
+     * @return
+     */
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+}
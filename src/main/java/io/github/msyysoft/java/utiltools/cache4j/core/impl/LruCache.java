@@ -1,8 +1,11 @@
 package io.github.msyysoft.java.utiltools.cache4j.core.impl;
 
-import io.github.msyysoft.java.utiltools.cache4j.core.ICache;
+import io.github.msyysoft.java.utiltools.cache4j.buffer.ReadBuffer;
+import io.github.msyysoft.java.utiltools.cache4j.core.CacheAbstract;
 import io.github.msyysoft.java.utiltools.cache4j.factory.INodeFactory;
+import io.github.msyysoft.java.utiltools.cache4j.linked.LinkedAbstract;
 import io.github.msyysoft.java.utiltools.cache4j.linked.impl.CacheLinked;
+import io.github.msyysoft.java.utiltools.cache4j.linked.impl.ConcurrentCacheLinked;
 import io.github.msyysoft.java.utiltools.cache4j.node.NodeAbstract;
 
 import java.util.concurrent.atomic.AtomicInteger;
@@ -14,32 +17,12 @@ import java.util.concurrent.atomic.AtomicInteger;
  * @param <K>
  * @param <V>
  */
-public class LruCache<K, V> implements ICache<K, V>{
+public class LruCache<K, V> extends CacheAbstract<K, V> {
 
     /**
-     * 链表
+     * 读缓冲，未开启时为null
      */
-    private CacheLinked<K, V> linked = null;
-    
-    /**
-     * 链表节点工厂
-     */
-    private INodeFactory<K, V> nodeFactory = null;
-    
-    /**
-     * 配置
-     */
-    private CacheConfig config = null;
-    
-    /**
-     * 未命中计数
-     */
-    private AtomicInteger missCount = new AtomicInteger();
-    
-    /**
-     * 命中计数
-     */
-    private AtomicInteger hitCount = new AtomicInteger();
+    private ReadBuffer<NodeAbstract<K, V>> readBuffer = null;
     
     /**
      * 构造方法
@@ -47,92 +30,91 @@ public class LruCache<K, V> implements ICache<K, V>{
      * @param nodeFactory  链表节点对象创建工厂
      */
     public LruCache(CacheConfig config, INodeFactory<K, V> nodeFactory){
-        this.config = config;
-        this.linked = new CacheLinked<K, V>();
-        this.nodeFactory = nodeFactory;
-    }
-    
-    @Override
-    public void put(K key, V value) {
-        //创建链表节点
-        NodeAbstract<K, V> node = nodeFactory.createNode(key, value);
-        
-        synchronized (this) {
-            //防止元素重复
-            this.remove(key);
-            
-            //判断元素数量是否到达上限
-            if(this.size() == config.getMaxElement()){
-                //越接近链表末尾的元素，越不活跃，未被访问的时间越长
-                linked.pop();
-            }
-            
-            linked.unshift(node);
+        super(config, nodeFactory);
+        if(config.isReadBuffered()){
+            this.readBuffer = new ReadBuffer<NodeAbstract<K, V>>();
         }
     }
-
+    
     @Override
-    public V get(K key) {
-        NodeAbstract<K, V> node = linked.get(key);
-        
-        if(node != null){
-            
-            //最近被使用过的元素放到链表头
-            linked.remove(node);
-            linked.unshift(node);
-            
-            this.hitCount.incrementAndGet();
-            return node.getValue();
-        }
-        
-        this.missCount.incrementAndGet();
-        return null;
+    protected void linkNode(NodeAbstract<K, V> node) {
+        linked.unshift(node);
     }
-
+    
     @Override
-    public int size() {
-        return this.linked.size();
+    protected NodeAbstract<K, V> unlinkVictim() {
+        //越接近链表末尾的元素，越不活跃，未被访问的时间越长
+        return linked.pop();
     }
-
+    
     @Override
-    public double hitRatio() {
-        double _hitCount = this.hitCount.doubleValue();
-        double _missCount = this.missCount.doubleValue();
-        double dividend = _hitCount + _missCount;
-        
-        if(dividend == 0){
-            return 0.0d;
+    protected void onAccess(NodeAbstract<K, V> node) {
+        if(this.readBuffer == null){
+            //最近被使用过的元素放到链表头，链表不是线程安全的，调整顺序必须加锁
+            synchronized (this) {
+                if(linked.get(node.getKey()) == node){
+                    linked.remove(node);
+                    linked.unshift(node);
+                }
+            }
+        }else if(this.readBuffer.offer(node)){
+            //读缓冲已满，加锁批量回放
+            synchronized (this) {
+                this.drainReadBuffer();
+            }
         }
-        
-        return _hitCount / dividend;
     }
-
+    
     @Override
-    public void clear() {
-        this.linked = new CacheLinked<K, V>();
-        this.hitCount.set(0);
-        this.missCount.set(0);
+    protected void beforeWrite() {
+        //先回放读缓冲，保证淘汰时链表顺序尽量准确
+        this.drainReadBuffer();
     }
-
+    
     @Override
-    public NodeAbstract<K, V> getNode(K key) {
-        return linked.get(key);
+    protected LinkedAbstract<K, V> createLinked() {
+        //开启读缓冲时查找map需要支持无锁并发读
+        if(config.isReadBuffered()){
+            return new ConcurrentCacheLinked<K, V>();
+        }
+        return new CacheLinked<K, V>();
     }
     
-    @Override
-    public void remove(K key) {
-        synchronized (this) {
-            linked.remove(key);
+    /**
+     * 回放读缓冲，将记录的命中元素依次移到链表头，调用方必须持有锁
+     */
+    private void drainReadBuffer() {
+        if(this.readBuffer == null){
+            return;
         }
+        final LinkedAbstract<K, V> _linked = this.linked;
+        this.readBuffer.drainTo(node -> {
+            //跳过已被删除或替换的节点
+            if(_linked.get(node.getKey()) == node){
+                _linked.remove(node);
+                _linked.unshift(node);
+            }
+        });
     }
     
+    /**
+     * 未命中次数
+     * @return 统计快照中的数值，修改返回的对象不影响统计
+     * @deprecated 使用 {@link #stats()}
+     */
+    @Deprecated
     public AtomicInteger getMissCount() {
-        return missCount;
+        return new AtomicInteger((int) this.stats().getMissCount());
     }
 
+    /**
+     * 命中次数
+     * @return 统计快照中的数值，修改返回的对象不影响统计
+     * @deprecated 使用 {@link #stats()}
+     */
+    @Deprecated
     public AtomicInteger getHitCount() {
-        return hitCount;
+        return new AtomicInteger((int) this.stats().getHitCount());
     }
     
-    
 }
@@ -0,0 +1,206 @@
+package io.github.msyysoft.java.utiltools.cache4j.core.impl;
+
+import io.github.msyysoft.java.utiltools.cache4j.core.ICache;
+import io.github.msyysoft.java.utiltools.cache4j.invalidation.IInvalidationListener;
+import io.github.msyysoft.java.utiltools.cache4j.invalidation.InvalidationBus;
+import io.github.msyysoft.java.utiltools.cache4j.node.NodeAbstract;
+import io.github.msyysoft.java.utiltools.cache4j.serializer.ISerializer;
+import io.github.msyysoft.java.utiltools.cache4j.stats.CacheStats;
+
+import java.io.Closeable;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * 近端缓存
+ * 包装任意缓存实现，put()、remove()等写操作在修改本地缓存后通过失效总线通知其他进程删除同名缓存中的key，
+ * 收到其他进程的通知时只删除本地缓存中的key，不再转发。其他进程删除后再次读取时从数据源重新加载。
+ * 应在数据源写入成功后再调用写操作。computeIfAbsent()视为读取，不发布失效消息。
+ * 从数据源读取后回填缓存（加载函数、cache-aside）必须使用putLocal()，用put()回填会让各进程互相删除刚加载的数据，
+ * LoadingCache包装NearCache时自动使用putLocal()。
+ * invalidateAll()无法把条件发送给其他进程，会通知其他进程清空整个缓存。
+ * @author 杨元
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class NearCache<K, V> implements ICache<K, V>, Closeable {
+
+    /**
+     * 被包装的本地缓存
+     */
+    private ICache<K, V> cache = null;
+
+    /**
+     * 缓存名称，各进程中同一份数据的缓存必须使用相同名称
+     */
+    private String name = null;
+
+    /**
+     * key序列化
+     */
+    private ISerializer<K> keySerializer = null;
+
+    /**
+     * 失效总线
+     */
+    private InvalidationBus bus = null;
+
+    /**
+     * 构造方法，订阅总线上同名缓存的失效消息
+     * @param name  缓存名称
+     * @param cache  本地缓存
+     * @param keySerializer  key序列化，各进程必须一致
+     * @param bus  失效总线
+     */
+    public NearCache(String name, ICache<K, V> cache, ISerializer<K> keySerializer, InvalidationBus bus){
+        this.name = name;
+        this.cache = cache;
+        this.keySerializer = keySerializer;
+        this.bus = bus;
+
+        bus.subscribe(name, new IInvalidationListener() {
+            @Override
+            public void onInvalidate(byte[] key) {
+                NearCache.this.cache.remove(NearCache.this.keySerializer.deserialize(key));
+            }
+
+            @Override
+            public void onInvalidateAll() {
+                NearCache.this.cache.invalidateAll((key, value) -> true);
+            }
+        });
+    }
+
+    @Override
+    public void put(K key, V value) {
+        this.cache.put(key, value);
+        this.publish(key);
+    }
+
+    /**
+     * 只放入本地缓存，不发布失效消息
+     * 用于从数据源读取后回填缓存，数据源未变化，其他进程的缓存仍然有效
+     * @param key
+     * @param value
+     */
+    public void putLocal(K key, V value) {
+        this.cache.put(key, value);
+    }
+
+    @Override
+    public V get(K key) {
+        return this.cache.get(key);
+    }
+
+    @Override
+    public NodeAbstract<K, V> getNode(K key) {
+        return this.cache.getNode(key);
+    }
+
+    @Override
+    public void remove(K key) {
+        this.cache.remove(key);
+        this.publish(key);
+    }
+
+    @Override
+    public Map<K, V> getAll(Collection<? extends K> keys) {
+        return this.cache.getAll(keys);
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> map) {
+        this.cache.putAll(map);
+        for(K key : map.keySet()){
+            this.publish(key);
+        }
+    }
+
+    @Override
+    public void removeAll(Collection<? extends K> keys) {
+        this.cache.removeAll(keys);
+        for(K key : keys){
+            this.publish(key);
+        }
+    }
+
+    @Override
+    public void invalidateAll(BiPredicate<? super K, ? super V> predicate) {
+        this.cache.invalidateAll(predicate);
+        this.bus.publishAll(this.name);
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        V existing = this.cache.putIfAbsent(key, value);
+        if(existing == null){
+            this.publish(key);
+        }
+        return existing;
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        if(this.cache.replace(key, oldValue, newValue)){
+            this.publish(key);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        return this.cache.computeIfAbsent(key, mappingFunction);
+    }
+
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        V value = this.cache.compute(key, remappingFunction);
+        this.publish(key);
+        return value;
+    }
+
+    @Override
+    public int size() {
+        return this.cache.size();
+    }
+
+    @Override
+    public CacheStats stats() {
+        return this.cache.stats();
+    }
+
+    /**
+     * 清空本地缓存，并通知其他进程清空同名缓存
+     */
+    @Override
+    public void clear() {
+        this.cache.clear();
+        this.bus.publishAll(this.name);
+    }
+
+    /**
+     * 取消订阅，不关闭失效总线
+     */
+    @Override
+    public void close() {
+        this.bus.unsubscribe(this.name);
+    }
+
+    private void publish(K key) {
+        this.bus.publish(this.name, this.keySerializer.serialize(key));
+    }
+
+    public ICache<K, V> getCache() {
+        return cache;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+}
@@ -0,0 +1,292 @@
+package io.github.msyysoft.java.utiltools.cache4j.core.impl;
+
+import io.github.msyysoft.java.utiltools.cache4j.core.ICache;
+import io.github.msyysoft.java.utiltools.cache4j.core.RemovalCause;
+import io.github.msyysoft.java.utiltools.cache4j.core.RemovalDispatcher;
+import io.github.msyysoft.java.utiltools.cache4j.factory.INodeFactory;
+import io.github.msyysoft.java.utiltools.cache4j.factory.impl.CacheNodeFactory;
+import io.github.msyysoft.java.utiltools.cache4j.linked.impl.CacheLinked;
+import io.github.msyysoft.java.utiltools.cache4j.node.NodeAbstract;
+import io.github.msyysoft.java.utiltools.cache4j.offheap.SlabAllocator;
+import io.github.msyysoft.java.utiltools.cache4j.serializer.ISerializer;
+import io.github.msyysoft.java.utiltools.cache4j.stats.CacheStats;
+import io.github.msyysoft.java.utiltools.cache4j.stats.IStatsCounter;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+
+/**
+ * 堆外存储LRU缓存实现
+ * key和查找索引保存在堆内，值序列化后存放在直接内存slab中，链表节点只持有定长句柄，
+ * 堆内占用只随元素数量增长，不随值的体积增长，大体积的值不再增加GC扫描和复制的负担。
+ * 序列化后超过slab大小的值不会被缓存，同一key的旧值同时按SIZE原因移除。
+ * slab一旦分给某个slab class就不再回收，其他class占满内存后，新值所在class没有chunk也没有可淘汰的元素时（slab钙化），
+ * 新值同样不会被缓存，旧值按SIZE原因移除。两种情况都计入rejectedCount()，该值持续增长时应调整slabSize或maxOffHeapMemory。
+ * @author 杨元
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class OffHeapCache<K, V> implements ICache<K, V> {
+
+    /**
+     * 链表，节点值为堆外数据句柄
+     */
+    private CacheLinked<K, Long> linked = null;
+
+    /**
+     * 链表节点工厂
+     */
+    private INodeFactory<K, Long> handleNodeFactory = new CacheNodeFactory<K, Long>();
+
+    /**
+     * 值序列化
+     */
+    private ISerializer<V> serializer = null;
+
+    /**
+     * 堆外内存分配器
+     */
+    private SlabAllocator allocator = null;
+
+    /**
+     * 配置
+     */
+    private CacheConfig config = null;
+
+    /**
+     * 统计计数器
+     */
+    private IStatsCounter statsCounter = null;
+
+    /**
+     * 移除通知分发
+     */
+    private RemovalDispatcher<K, V> removalDispatcher = null;
+
+    /**
+     * 因超过slab大小或无法腾出chunk而未缓存的put次数
+     */
+    private final LongAdder rejectedCount = new LongAdder();
+
+    /**
+     * 构造方法
+     * @param config  配置对象，maxOffHeapMemory和slabSize决定堆外内存的使用
+     * @param serializer  值序列化
+     */
+    public OffHeapCache(CacheConfig config, ISerializer<V> serializer){
+        this.config = config;
+        this.statsCounter = config.createStatsCounter();
+        this.removalDispatcher = RemovalDispatcher.create(config);
+        this.serializer = serializer;
+        this.linked = new CacheLinked<K, Long>();
+        this.allocator = new SlabAllocator(config.getSlabSize(), config.getMaxOffHeapMemory());
+    }
+
+    @Override
+    public void put(K key, V value) {
+        //序列化在锁外完成
+        byte[] bytes = this.serializer.serialize(value);
+
+        synchronized (this) {
+            //防止元素重复，旧值确定能被替换后才按REPLACED通知
+            NodeAbstract<K, Long> oldNode = linked.get(key);
+            if(oldNode != null){
+                linked.remove(oldNode);
+            }
+
+            int slabClass = this.allocator.slabClassFor(bytes.length);
+            if(slabClass < 0){
+                //超过slab大小，不缓存；旧值已过时，不能保留
+                if(oldNode != null){
+                    this.release(oldNode, RemovalCause.SIZE);
+                }
+                this.rejectedCount.increment();
+                return;
+            }
+
+            //旧值在同一slab class时，释放的chunk正好用于新值
+            if(oldNode != null && this.allocator.slabClassOf(oldNode.getValue()) == slabClass){
+                this.release(oldNode, RemovalCause.REPLACED);
+                oldNode = null;
+            }
+
+            //判断元素数量是否到达上限
+            if(this.size() == config.getMaxElement()){
+                NodeAbstract<K, Long> victim = linked.pop();
+                if(victim != null){
+                    this.release(victim, RemovalCause.SIZE);
+                }
+            }
+
+            //同一slab class没有空闲chunk时，淘汰该class中最久未使用的元素腾出空间
+            while(!this.allocator.hasRoom(slabClass)){
+                if(!this.evictFromSlabClass(slabClass)){
+                    //无法腾出空间，新值不缓存，旧值按SIZE原因移除
+                    if(oldNode != null){
+                        this.release(oldNode, RemovalCause.SIZE);
+                    }
+                    this.rejectedCount.increment();
+                    return;
+                }
+            }
+
+            NodeAbstract<K, Long> node = this.handleNodeFactory.createNode(key, this.allocator.allocate(bytes));
+            linked.unshift(node);
+            if(oldNode != null){
+                this.release(oldNode, RemovalCause.REPLACED);
+            }
+        }
+    }
+
+    @Override
+    public V get(K key) {
+        byte[] bytes = null;
+
+        synchronized (this) {
+            NodeAbstract<K, Long> node = linked.get(key);
+            if(node != null){
+                //最近被使用过的元素放到链表头
+                linked.remove(node);
+                linked.unshift(node);
+                bytes = this.allocator.read(node.getValue());
+            }
+        }
+
+        if(bytes == null){
+            this.statsCounter.recordMisses(1);
+            return null;
+        }
+
+        this.statsCounter.recordHits(1);
+        return this.serializer.deserialize(bytes);
+    }
+
+    /**
+     * 获取缓存节点对象
+     * 值存放在堆外，返回的是反序列化后的独立节点，修改它不会影响缓存
+     */
+    @Override
+    public NodeAbstract<K, V> getNode(K key) {
+        byte[] bytes = null;
+
+        synchronized (this) {
+            NodeAbstract<K, Long> node = linked.get(key);
+            if(node != null){
+                bytes = this.allocator.read(node.getValue());
+            }
+        }
+
+        if(bytes == null){
+            return null;
+        }
+
+        return new CacheNodeFactory<K, V>().createNode(key, this.serializer.deserialize(bytes));
+    }
+
+    @Override
+    public void remove(K key) {
+        synchronized (this) {
+            NodeAbstract<K, Long> node = linked.get(key);
+            if(node != null){
+                linked.remove(node);
+                this.release(node, RemovalCause.EXPLICIT);
+            }
+        }
+    }
+
+    /**
+     * 批量移除，只加一次锁
+     */
+    @Override
+    public synchronized void removeAll(Collection<? extends K> keys) {
+        ICache.super.removeAll(keys);
+    }
+
+    /**
+     * 值需要在锁内反序列化后交给条件判断
+     */
+    @Override
+    public synchronized void invalidateAll(BiPredicate<? super K, ? super V> predicate) {
+        linked.forEachNode(node -> {
+            if(predicate.test(node.getKey(), this.serializer.deserialize(this.allocator.read(node.getValue())))){
+                linked.remove(node);
+                this.release(node, RemovalCause.EXPLICIT);
+            }
+        });
+    }
+
+    @Override
+    public int size() {
+        return this.linked.size();
+    }
+
+    @Override
+    public CacheStats stats() {
+        return this.statsCounter.snapshot();
+    }
+
+    @Override
+    public void clear() {
+        synchronized (this) {
+            this.linked = new CacheLinked<K, Long>();
+            //旧的直接内存随分配器一起被回收
+            this.allocator = new SlabAllocator(config.getSlabSize(), config.getMaxOffHeapMemory());
+        }
+        this.statsCounter.reset();
+        this.rejectedCount.reset();
+    }
+
+    /**
+     * 已申请的堆外内存，单位字节
+     * @return
+     */
+    public long offHeapMemory() {
+        return this.allocator.getAllocatedMemory();
+    }
+
+    /**
+     * 未被缓存的put次数：值超过slab大小，或所在slab class无法腾出chunk
+     * @return
+     */
+    public long rejectedCount() {
+        return this.rejectedCount.sum();
+    }
+
+    /**
+     * 从链表尾部向前查找并淘汰一个属于指定slab class的元素
+     * @param slabClass
+     * @return 没有可淘汰的元素时返回false
+     */
+    private boolean evictFromSlabClass(int slabClass) {
+        NodeAbstract<K, Long> node = linked.last();
+        while(node != null && node.getValue() != null){
+            if(this.allocator.slabClassOf(node.getValue()) == slabClass){
+                linked.remove(node);
+                this.release(node, RemovalCause.SIZE);
+                return true;
+            }
+            node = node.getPrevNode();
+        }
+        return false;
+    }
+
+    /**
+     * 释放已移出链表的节点持有的堆外内存，记录淘汰并分发移除通知
+     * 配置了移除监听时先复制出值的字节，反序列化在回调线程中进行
+     * @param node
+     * @param cause
+     */
+    private void release(NodeAbstract<K, Long> node, RemovalCause cause) {
+        if(cause.wasEvicted()){
+            this.statsCounter.recordEviction(cause, 1);
+        }
+        if(this.removalDispatcher.isEnabled()){
+            final byte[] bytes = this.allocator.read(node.getValue());
+            this.removalDispatcher.dispatchLazily(node.getKey(), () -> this.serializer.deserialize(bytes), cause);
+        }
+        this.allocator.free(node.getValue());
+    }
+
+}
@@ -0,0 +1,331 @@
+package io.github.msyysoft.java.utiltools.cache4j.core.impl;
+
+import io.github.msyysoft.java.utiltools.cache4j.core.ICache;
+import io.github.msyysoft.java.utiltools.cache4j.core.RemovalCause;
+import io.github.msyysoft.java.utiltools.cache4j.core.RemovalDispatcher;
+import io.github.msyysoft.java.utiltools.cache4j.factory.impl.CacheNodeFactory;
+import io.github.msyysoft.java.utiltools.cache4j.node.NodeAbstract;
+import io.github.msyysoft.java.utiltools.cache4j.stats.CacheStats;
+import io.github.msyysoft.java.utiltools.cache4j.stats.IStatsCounter;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.BiPredicate;
+
+/**
+ * 环形数组FIFO缓存实现
+ * key和值存放在按容量预分配的环形数组中，写指针依次向前移动，容量满时覆盖写指针处最早写入的元素；
+ * 查找使用开放寻址（线性探测）的int数组哈希表，不创建链表节点，预热后put()不产生任何临时对象。
+ * 开启二次机会（CLOCK）时，被访问过的元素在写指针经过时清除访问标记并保留一轮，只淘汰未被访问过的元素。
+ * 显式删除会在数组中留下空位，之后的写入优先填补空位，此时淘汰顺序为近似FIFO。
+ * 容量在创建时固定，maxElement必须大于0。
+ * @author 杨元
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class RingBufferCache<K, V> implements ICache<K, V> {
+
+    /**
+     * 各槽位的key，null表示空位
+     */
+    private Object[] keys;
+
+    /**
+     * 各槽位的值
+     */
+    private Object[] values;
+
+    /**
+     * 各槽位的访问标记，仅二次机会模式使用
+     */
+    private boolean[] referenced;
+
+    /**
+     * 哈希表，存放槽位下标+1，0表示空
+     */
+    private int[] table;
+
+    /**
+     * 哈希表下标掩码
+     */
+    private int mask;
+
+    /**
+     * 写指针
+     */
+    private int hand;
+
+    /**
+     * 元素数量，size()不加锁读取
+     */
+    private volatile int count;
+
+    /**
+     * 移除通知分发
+     */
+    private RemovalDispatcher<K, V> removalDispatcher = null;
+
+    /**
+     * 统计计数器
+     */
+    private IStatsCounter statsCounter = null;
+
+    /**
+     * 构造方法，严格FIFO
+     * @param config  配置对象，maxElement决定数组容量
+     */
+    public RingBufferCache(CacheConfig config){
+        this(config, false);
+    }
+
+    /**
+     * 构造方法
+     * @param config  配置对象，maxElement决定数组容量
+     * @param secondChance  是否开启二次机会（CLOCK）淘汰
+     */
+    public RingBufferCache(CacheConfig config, boolean secondChance){
+        int capacity = config.getMaxElement();
+        if(capacity <= 0){
+            throw new IllegalArgumentException("maxElement must be greater than 0");
+        }
+        this.removalDispatcher = RemovalDispatcher.create(config);
+        this.statsCounter = config.createStatsCounter();
+
+        this.keys = new Object[capacity];
+        this.values = new Object[capacity];
+        if(secondChance){
+            this.referenced = new boolean[capacity];
+        }
+
+        int tableSize = Integer.highestOneBit(Math.max(capacity * 2 - 1, 1)) << 1;
+        this.table = new int[tableSize];
+        this.mask = tableSize - 1;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public synchronized void put(K key, V value) {
+        //已存在的元素原位替换值，保持写入顺序不变
+        int slot = this.find(key);
+        if(slot >= 0){
+            V oldValue = (V) this.values[slot];
+            this.values[slot] = value;
+            this.removalDispatcher.dispatch(key, oldValue, RemovalCause.REPLACED);
+            return;
+        }
+
+        slot = this.advance();
+        this.keys[slot] = key;
+        this.values[slot] = value;
+        this.insertIndex(key, slot);
+        this.count++;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public synchronized V get(K key) {
+        int slot = this.find(key);
+        if(slot < 0){
+            this.statsCounter.recordMisses(1);
+            return null;
+        }
+
+        if(this.referenced != null){
+            this.referenced[slot] = true;
+        }
+        this.statsCounter.recordHits(1);
+        return (V) this.values[slot];
+    }
+
+    /**
+     * 获取缓存节点对象
+     * 元素不以节点形式存储，返回的是新建的独立节点，修改它不会影响缓存
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public synchronized NodeAbstract<K, V> getNode(K key) {
+        int slot = this.find(key);
+        if(slot < 0){
+            return null;
+        }
+        return new CacheNodeFactory<K, V>().createNode(key, (V) this.values[slot]);
+    }
+
+    @Override
+    public synchronized void remove(K key) {
+        int slot = this.find(key);
+        if(slot >= 0){
+            this.release(slot, RemovalCause.EXPLICIT);
+        }
+    }
+
+    /**
+     * 批量获取，只加一次锁
+     */
+    @Override
+    public synchronized Map<K, V> getAll(Collection<? extends K> keys) {
+        return ICache.super.getAll(keys);
+    }
+
+    /**
+     * 批量缓存，只加一次锁
+     */
+    @Override
+    public synchronized void putAll(Map<? extends K, ? extends V> map) {
+        ICache.super.putAll(map);
+    }
+
+    /**
+     * 批量移除，只加一次锁
+     */
+    @Override
+    public synchronized void removeAll(Collection<? extends K> keys) {
+        ICache.super.removeAll(keys);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public synchronized void invalidateAll(BiPredicate<? super K, ? super V> predicate) {
+        for(int slot = 0; slot < this.keys.length; slot++){
+            if(this.keys[slot] != null && predicate.test((K) this.keys[slot], (V) this.values[slot])){
+                this.release(slot, RemovalCause.EXPLICIT);
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return this.count;
+    }
+
+    @Override
+    public CacheStats stats() {
+        return this.statsCounter.snapshot();
+    }
+
+    @Override
+    public void clear() {
+        synchronized (this) {
+            Arrays.fill(this.keys, null);
+            Arrays.fill(this.values, null);
+            Arrays.fill(this.table, 0);
+            if(this.referenced != null){
+                Arrays.fill(this.referenced, false);
+            }
+            this.hand = 0;
+            this.count = 0;
+        }
+        this.statsCounter.reset();
+    }
+
+    /**
+     * 移动写指针，找到可写入的槽位，必要时淘汰元素
+     * @return 空槽位
+     */
+    private int advance() {
+        int capacity = this.keys.length;
+        while(true){
+            int slot = this.hand;
+            this.hand = slot + 1 == capacity ? 0 : slot + 1;
+
+            if(this.keys[slot] == null){
+                return slot;
+            }
+            //未满时跳过已有元素，填补删除留下的空位
+            if(this.count < capacity){
+                continue;
+            }
+            if(this.referenced != null && this.referenced[slot]){
+                //二次机会
+                this.referenced[slot] = false;
+                continue;
+            }
+
+            this.statsCounter.recordEviction(RemovalCause.SIZE, 1);
+            this.release(slot, RemovalCause.SIZE);
+            return slot;
+        }
+    }
+
+    /**
+     * 删除索引并清空槽位，分发移除通知
+     * @param slot
+     * @param cause
+     */
+    @SuppressWarnings("unchecked")
+    private void release(int slot, RemovalCause cause) {
+        this.removalDispatcher.dispatch((K) this.keys[slot], (V) this.values[slot], cause);
+        this.deleteIndex(slot);
+        this.keys[slot] = null;
+        this.values[slot] = null;
+        if(this.referenced != null){
+            this.referenced[slot] = false;
+        }
+        this.count--;
+    }
+
+    /**
+     * 查找key所在槽位
+     * @param key
+     * @return 不存在时返回-1
+     */
+    private int find(Object key) {
+        int i = hash(key) & this.mask;
+        int entry;
+        while((entry = this.table[i]) != 0){
+            if(key.equals(this.keys[entry - 1])){
+                return entry - 1;
+            }
+            i = (i + 1) & this.mask;
+        }
+        return -1;
+    }
+
+    private void insertIndex(Object key, int slot) {
+        int i = hash(key) & this.mask;
+        while(this.table[i] != 0){
+            i = (i + 1) & this.mask;
+        }
+        this.table[i] = slot + 1;
+    }
+
+    /**
+     * 删除槽位的索引，后续元素向前回移，不使用删除标记
+     * @param slot
+     */
+    private void deleteIndex(int slot) {
+        int i = hash(this.keys[slot]) & this.mask;
+        while(this.table[i] != slot + 1){
+            i = (i + 1) & this.mask;
+        }
+
+        int j = i;
+        while(true){
+            j = (j + 1) & this.mask;
+            int entry = this.table[j];
+            if(entry == 0){
+                break;
+            }
+            //j上的元素理想位置不在(i, j]区间内时，可以移到i
+            int ideal = hash(this.keys[entry - 1]) & this.mask;
+            if(((j - ideal) & this.mask) >= ((j - i) & this.mask)){
+                this.table[i] = entry;
+                i = j;
+            }
+        }
+        this.table[i] = 0;
+    }
+
+    /**
+     * 打散hashCode
+     * @param key
+     * @return
+     */
+    private static int hash(Object key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+}
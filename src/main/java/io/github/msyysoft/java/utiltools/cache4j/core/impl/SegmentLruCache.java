@@ -0,0 +1,302 @@
+package io.github.msyysoft.java.utiltools.cache4j.core.impl;
+
+import io.github.msyysoft.java.utiltools.cache4j.core.ICache;
+import io.github.msyysoft.java.utiltools.cache4j.core.IRefreshable;
+import io.github.msyysoft.java.utiltools.cache4j.factory.INodeFactory;
+import io.github.msyysoft.java.utiltools.cache4j.node.NodeAbstract;
+import io.github.msyysoft.java.utiltools.cache4j.stats.CacheStats;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * 分段锁LRU缓存实现
+ * 按key的hash将数据分散到多个独立加锁的LRU分段中，每个分段拥有自己的链表、查找map和容量份额，
+ * 不同分段上的读写可以并行执行。
+ * @author 杨元
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class SegmentLruCache<K, V> implements ICache<K, V>, IRefreshable<K, V> {
+
+    /**
+     * 分段数量上限
+     */
+    private static final int MAX_SEGMENTS = 1 << 16;
+
+    /**
+     * 分段，每个分段以自身作为锁
+     */
+    private LruCache<K, V>[] segments = null;
+
+    /**
+     * 定位分段时使用的hash偏移
+     */
+    private int segmentShift;
+
+    /**
+     * 定位分段时使用的掩码
+     */
+    private int segmentMask;
+
+    /**
+     * 构造方法
+     * @param config  配置对象，concurrencyLevel决定分段数量
+     * @param nodeFactory  链表节点对象创建工厂
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public SegmentLruCache(CacheConfig config, INodeFactory<K, V> nodeFactory){
+        int maxElement = config.getMaxElement();
+        long maxWeight = config.getMaxWeight();
+        int concurrencyLevel = Math.min(Math.max(config.getConcurrencyLevel(), 1), MAX_SEGMENTS);
+
+        //分段数量取2的幂，限制元素个数或权重时保证每个分段的上限至少为1，上限为0表示不限制
+        int shift = 0;
+        int segmentCount = 1;
+        while(segmentCount < concurrencyLevel && (maxElement <= 0 || (segmentCount << 1) <= maxElement)
+                && (maxWeight <= 0 || (segmentCount << 1) <= maxWeight)){
+            shift++;
+            segmentCount <<= 1;
+        }
+        this.segmentShift = 32 - shift;
+        this.segmentMask = segmentCount - 1;
+
+        //分配元素上限，余数分给前面的分段
+        this.segments = new LruCache[segmentCount];
+        int perSegment = maxElement / segmentCount;
+        int remainder = maxElement % segmentCount;
+        long weightPerSegment = maxWeight / segmentCount;
+        long weightRemainder = maxWeight % segmentCount;
+        for(int i = 0; i < segmentCount; i++){
+            CacheConfig segmentConfig = config.copy().setMaxElement(i < remainder ? perSegment + 1 : perSegment)
+                    .setMaxWeight(i < weightRemainder ? weightPerSegment + 1 : weightPerSegment);
+            this.segments[i] = new LruCache<K, V>(segmentConfig, nodeFactory);
+        }
+    }
+
+    @Override
+    public void put(K key, V value) {
+        LruCache<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, value);
+        }
+    }
+
+    @Override
+    public V get(K key) {
+        LruCache<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.get(key);
+        }
+    }
+
+    /**
+     * 批量获取，按分段分组，每个分段只加一次锁
+     */
+    @Override
+    public Map<K, V> getAll(Collection<? extends K> keys) {
+        List<K>[] groups = this.groupBySegment(keys);
+        Map<K, V> found = new HashMap<K, V>();
+        for(int i = 0; i < groups.length; i++){
+            if(groups[i] != null){
+                found.putAll(this.segments[i].getAll(groups[i]));
+            }
+        }
+
+        //按传入顺序排列
+        Map<K, V> result = new LinkedHashMap<K, V>();
+        for(K key : keys){
+            V value = found.get(key);
+            if(value != null){
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 批量缓存，按分段分组，每个分段只加一次锁并统一淘汰
+     */
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void putAll(Map<? extends K, ? extends V> map) {
+        Map<K, V>[] groups = new Map[this.segments.length];
+        for(Map.Entry<? extends K, ? extends V> entry : map.entrySet()){
+            int index = this.segmentIndex(entry.getKey());
+            if(groups[index] == null){
+                groups[index] = new LinkedHashMap<K, V>();
+            }
+            groups[index].put(entry.getKey(), entry.getValue());
+        }
+        for(int i = 0; i < groups.length; i++){
+            if(groups[i] != null){
+                this.segments[i].putAll(groups[i]);
+            }
+        }
+    }
+
+    /**
+     * 批量移除，按分段分组，每个分段只加一次锁
+     */
+    @Override
+    public void removeAll(Collection<? extends K> keys) {
+        List<K>[] groups = this.groupBySegment(keys);
+        for(int i = 0; i < groups.length; i++){
+            if(groups[i] != null){
+                this.segments[i].removeAll(groups[i]);
+            }
+        }
+    }
+
+    /**
+     * 逐段遍历，每个分段只加一次锁
+     */
+    @Override
+    public void invalidateAll(BiPredicate<? super K, ? super V> predicate) {
+        for(LruCache<K, V> segment : this.segments){
+            segment.invalidateAll(predicate);
+        }
+    }
+
+    /**
+     * 原子操作交给key所在的分段，只锁一个分段
+     */
+    @Override
+    public V putIfAbsent(K key, V value) {
+        return segmentFor(key).putIfAbsent(key, value);
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        return segmentFor(key).replace(key, oldValue, newValue);
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        return segmentFor(key).computeIfAbsent(key, mappingFunction);
+    }
+
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        return segmentFor(key).compute(key, remappingFunction);
+    }
+
+    @Override
+    public NodeAbstract<K, V> getNode(K key) {
+        LruCache<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.getNode(key);
+        }
+    }
+
+    @Override
+    public void remove(K key) {
+        LruCache<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.remove(key);
+        }
+    }
+
+    @Override
+    public boolean refreshValue(NodeAbstract<K, V> node, V value) {
+        return segmentFor(node.getKey()).refreshValue(node, value);
+    }
+
+    @Override
+    public int size() {
+        //逐段累加，不加全局锁，并发修改时结果为近似值
+        int size = 0;
+        for(LruCache<K, V> segment : this.segments){
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * 逐段校验链表和容量，不一致时抛出IllegalStateException
+     */
+    public void checkIntegrity() {
+        for(LruCache<K, V> segment : this.segments){
+            segment.checkIntegrity();
+        }
+    }
+
+    @Override
+    public CacheStats stats() {
+        //逐段累加，不加全局锁
+        CacheStats stats = CacheStats.empty();
+        for(LruCache<K, V> segment : this.segments){
+            stats = stats.plus(segment.stats());
+        }
+        return stats;
+    }
+
+    @Override
+    public void clear() {
+        for(LruCache<K, V> segment : this.segments){
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * 分段数量
+     * @return
+     */
+    public int segmentCount() {
+        return this.segments.length;
+    }
+
+    /**
+     * 根据key定位分段
+     * @param key
+     * @return
+     */
+    private LruCache<K, V> segmentFor(K key) {
+        return this.segments[this.segmentIndex(key)];
+    }
+
+    /**
+     * 根据key计算分段下标
+     * @param key
+     * @return
+     */
+    private int segmentIndex(K key) {
+        if(this.segmentMask == 0){
+            return 0;
+        }
+        //再散列，避免hashCode低质量导致分段倾斜，取高位定位分段
+        int h = key == null ? 0 : key.hashCode();
+        h *= 0x9E3779B9;
+        h ^= h >>> 16;
+        return (h >>> this.segmentShift) & this.segmentMask;
+    }
+
+    /**
+     * 按分段对key分组
+     * @param keys
+     * @return 下标为分段下标，没有key的分段为null
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private List<K>[] groupBySegment(Collection<? extends K> keys) {
+        List<K>[] groups = new List[this.segments.length];
+        for(K key : keys){
+            int index = this.segmentIndex(key);
+            if(groups[index] == null){
+                groups[index] = new ArrayList<K>();
+            }
+            groups[index].add(key);
+        }
+        return groups;
+    }
+
+}
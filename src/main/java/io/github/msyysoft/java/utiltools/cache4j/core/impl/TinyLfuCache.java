@@ -0,0 +1,316 @@
+package io.github.msyysoft.java.utiltools.cache4j.core.impl;
+
+import io.github.msyysoft.java.utiltools.cache4j.core.ICache;
+import io.github.msyysoft.java.utiltools.cache4j.core.RemovalCause;
+import io.github.msyysoft.java.utiltools.cache4j.core.RemovalDispatcher;
+import io.github.msyysoft.java.utiltools.cache4j.factory.INodeFactory;
+import io.github.msyysoft.java.utiltools.cache4j.linked.impl.CacheLinked;
+import io.github.msyysoft.java.utiltools.cache4j.node.NodeAbstract;
+import io.github.msyysoft.java.utiltools.cache4j.sketch.FrequencySketch;
+import io.github.msyysoft.java.utiltools.cache4j.stats.CacheStats;
+import io.github.msyysoft.java.utiltools.cache4j.stats.IStatsCounter;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.BiPredicate;
+
+/**
+ * W-TinyLFU 缓存淘汰算法实现
+ * 新数据先进入很小的窗口LRU，被窗口淘汰的数据需要与主缓存的淘汰候选比较访问频率，频率更高才能进入主缓存。
+ * 主缓存为分段LRU：试用区存放新准入的数据，在试用区再次命中的数据晋升到保护区。
+ * 只被访问一次的数据无法挤掉热点数据，对扫描型访问有很好的抵抗能力。
+ * @author 杨元
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class TinyLfuCache<K, V> implements ICache<K, V> {
+
+    /**
+     * 窗口区占总容量的比例
+     */
+    private static final double WINDOW_PERCENT = 0.01d;
+
+    /**
+     * 保护区占主缓存容量的比例
+     */
+    private static final double PROTECTED_PERCENT = 0.8d;
+
+    /**
+     * 窗口LRU
+     */
+    private CacheLinked<K, V> windowLinked = null;
+
+    /**
+     * 主缓存试用区
+     */
+    private CacheLinked<K, V> probationLinked = null;
+
+    /**
+     * 主缓存保护区
+     */
+    private CacheLinked<K, V> protectedLinked = null;
+
+    /**
+     * 访问频率草图
+     */
+    private FrequencySketch<K> sketch = null;
+
+    /**
+     * 链表节点工厂
+     */
+    private INodeFactory<K, V> nodeFactory = null;
+
+    /**
+     * 窗口区元素上限
+     */
+    private int maxWindow;
+
+    /**
+     * 主缓存元素上限
+     */
+    private int maxMain;
+
+    /**
+     * 保护区元素上限
+     */
+    private int maxProtected;
+
+    /**
+     * 统计计数器
+     */
+    private IStatsCounter statsCounter = null;
+
+    /**
+     * 移除通知分发
+     */
+    private RemovalDispatcher<K, V> removalDispatcher = null;
+
+    /**
+     * 构造方法
+     * @param config  配置对象，maxElement必须大于0
+     * @param nodeFactory  链表节点对象创建工厂
+     */
+    public TinyLfuCache(CacheConfig config, INodeFactory<K, V> nodeFactory){
+        int maxElement = config.getMaxElement();
+        if(maxElement <= 0){
+            throw new IllegalArgumentException("maxElement must be greater than 0");
+        }
+
+        //分配元素上限
+        this.maxWindow = Math.min(maxElement, Math.max(1, (int) (maxElement * WINDOW_PERCENT)));
+        this.maxMain = maxElement - this.maxWindow;
+        this.maxProtected = (int) (this.maxMain * PROTECTED_PERCENT);
+
+        this.nodeFactory = nodeFactory;
+        this.statsCounter = config.createStatsCounter();
+        this.removalDispatcher = RemovalDispatcher.create(config);
+        this.sketch = new FrequencySketch<K>(maxElement);
+        this.windowLinked = new CacheLinked<K, V>();
+        this.probationLinked = new CacheLinked<K, V>();
+        this.protectedLinked = new CacheLinked<K, V>();
+    }
+
+    @Override
+    public synchronized void put(K key, V value) {
+        this.sketch.increment(key);
+
+        //已存在的元素直接替换值，并视为一次访问
+        NodeAbstract<K, V> node = this.findNode(key);
+        if(node != null){
+            V oldValue = node.getValue();
+            node.setValue(value);
+            this.onAccess(node);
+            this.removalDispatcher.dispatch(key, oldValue, RemovalCause.REPLACED);
+            return;
+        }
+
+        //新元素放入窗口区
+        this.windowLinked.unshift(this.nodeFactory.createNode(key, value));
+
+        //窗口区溢出，淘汰出的元素参与主缓存准入竞争
+        if(this.windowLinked.size() > this.maxWindow){
+            this.admit(this.windowLinked.pop());
+        }
+    }
+
+    @Override
+    public synchronized V get(K key) {
+        this.sketch.increment(key);
+
+        NodeAbstract<K, V> node = this.findNode(key);
+        if(node != null){
+            this.onAccess(node);
+            this.statsCounter.recordHits(1);
+            return node.getValue();
+        }
+
+        this.statsCounter.recordMisses(1);
+        return null;
+    }
+
+    @Override
+    public synchronized NodeAbstract<K, V> getNode(K key) {
+        return this.findNode(key);
+    }
+
+    @Override
+    public synchronized void remove(K key) {
+        NodeAbstract<K, V> node = this.findNode(key);
+        if(node == null){
+            return;
+        }
+        this.windowLinked.remove(key);
+        this.probationLinked.remove(key);
+        this.protectedLinked.remove(key);
+        this.removalDispatcher.dispatch(key, node.getValue(), RemovalCause.EXPLICIT);
+    }
+
+    /**
+     * 批量获取，只加一次锁
+     */
+    @Override
+    public synchronized Map<K, V> getAll(Collection<? extends K> keys) {
+        return ICache.super.getAll(keys);
+    }
+
+    /**
+     * 批量缓存，只加一次锁
+     */
+    @Override
+    public synchronized void putAll(Map<? extends K, ? extends V> map) {
+        ICache.super.putAll(map);
+    }
+
+    /**
+     * 批量移除，只加一次锁
+     */
+    @Override
+    public synchronized void removeAll(Collection<? extends K> keys) {
+        ICache.super.removeAll(keys);
+    }
+
+    @Override
+    public synchronized void invalidateAll(BiPredicate<? super K, ? super V> predicate) {
+        this.invalidateAll(this.windowLinked, predicate);
+        this.invalidateAll(this.probationLinked, predicate);
+        this.invalidateAll(this.protectedLinked, predicate);
+    }
+
+    @Override
+    public int size() {
+        return this.windowLinked.size() + this.probationLinked.size() + this.protectedLinked.size();
+    }
+
+    @Override
+    public CacheStats stats() {
+        return this.statsCounter.snapshot();
+    }
+
+    @Override
+    public synchronized void clear() {
+        this.windowLinked = new CacheLinked<K, V>();
+        this.probationLinked = new CacheLinked<K, V>();
+        this.protectedLinked = new CacheLinked<K, V>();
+        this.sketch.clear();
+        this.statsCounter.reset();
+    }
+
+    /**
+     * 移除链表中所有满足条件的节点
+     * @param linked
+     * @param predicate
+     */
+    private void invalidateAll(final CacheLinked<K, V> linked, final BiPredicate<? super K, ? super V> predicate) {
+        linked.forEachNode(node -> {
+            if(predicate.test(node.getKey(), node.getValue())){
+                linked.remove(node);
+                this.removalDispatcher.dispatch(node.getKey(), node.getValue(), RemovalCause.EXPLICIT);
+            }
+        });
+    }
+
+    /**
+     * 在三个区中查找节点
+     * @param key
+     * @return
+     */
+    private NodeAbstract<K, V> findNode(K key) {
+        NodeAbstract<K, V> node = this.windowLinked.get(key);
+        if(node == null){
+            node = this.probationLinked.get(key);
+        }
+        if(node == null){
+            node = this.protectedLinked.get(key);
+        }
+        return node;
+    }
+
+    /**
+     * 元素被访问：窗口区和保护区内移到链表头，试用区的元素晋升到保护区
+     * @param node
+     */
+    private void onAccess(NodeAbstract<K, V> node) {
+        K key = node.getKey();
+
+        if(this.windowLinked.get(key) == node){
+            this.windowLinked.remove(node);
+            this.windowLinked.unshift(node);
+        }else if(this.protectedLinked.get(key) == node){
+            this.protectedLinked.remove(node);
+            this.protectedLinked.unshift(node);
+        }else if(this.probationLinked.get(key) == node){
+            this.probationLinked.remove(node);
+            this.protectedLinked.unshift(node);
+
+            //保护区溢出，最久未使用的元素降级回试用区
+            if(this.protectedLinked.size() > this.maxProtected){
+                NodeAbstract<K, V> demoted = this.protectedLinked.pop();
+                this.probationLinked.unshift(demoted);
+            }
+        }
+    }
+
+    /**
+     * 主缓存准入：候选元素的访问频率高于淘汰对象时才能进入主缓存
+     * @param candidate  被窗口区淘汰的元素
+     */
+    private void admit(NodeAbstract<K, V> candidate) {
+        if(this.probationLinked.size() + this.protectedLinked.size() < this.maxMain){
+            this.probationLinked.unshift(candidate);
+            return;
+        }
+
+        //优先从试用区尾部选择淘汰对象
+        CacheLinked<K, V> victimLinked = this.probationLinked;
+        NodeAbstract<K, V> victim = victimLinked.last();
+        if(victim == null){
+            victimLinked = this.protectedLinked;
+            victim = victimLinked.last();
+        }
+        if(victim == null){
+            //主缓存容量为0，候选元素直接丢弃
+            this.evict(candidate);
+            return;
+        }
+
+        //淘汰对象或候选元素二者之一被淘汰
+        if(this.sketch.frequency(candidate.getKey()) > this.sketch.frequency(victim.getKey())){
+            victimLinked.remove(victim);
+            this.probationLinked.unshift(candidate);
+            this.evict(victim);
+        }else{
+            this.evict(candidate);
+        }
+    }
+
+    /**
+     * 记录淘汰并分发移除通知
+     * @param node
+     */
+    private void evict(NodeAbstract<K, V> node) {
+        this.statsCounter.recordEviction(RemovalCause.SIZE, 1);
+        this.removalDispatcher.dispatch(node.getKey(), node.getValue(), RemovalCause.SIZE);
+    }
+
+}
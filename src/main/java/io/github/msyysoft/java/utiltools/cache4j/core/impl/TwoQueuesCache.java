@@ -1,20 +1,30 @@
 package io.github.msyysoft.java.utiltools.cache4j.core.impl;
 
 import io.github.msyysoft.java.utiltools.cache4j.core.ICache;
+import io.github.msyysoft.java.utiltools.cache4j.core.IRefreshable;
+import io.github.msyysoft.java.utiltools.cache4j.core.ISnapshotable;
+import io.github.msyysoft.java.utiltools.cache4j.core.RemovalCause;
 import io.github.msyysoft.java.utiltools.cache4j.factory.INodeFactory;
 import io.github.msyysoft.java.utiltools.cache4j.node.NodeAbstract;
 import io.github.msyysoft.java.utiltools.cache4j.node.impl.CacheNode;
+import io.github.msyysoft.java.utiltools.cache4j.stats.CacheStats;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiPredicate;
 
 /**
  * TwoQueues缓存淘汰算法实现
  * TwoQueues = FIFO + LRU
  * FIFO主要存放初次存入的数据，LRU中存放至少使用过两次的热点数据，此算法命中率高，适应性强，复杂度低。
+ * 写操作和晋升在本对象上加锁，保证同一个key不会同时出现在两个队列中；命中FIFO或LRU的读操作不加本对象的锁。
  * @author 杨元
  *
  * @param <K>
  * @param <V>
  */
-public class TwoQueuesCache<K, V> implements ICache<K, V> {
+public class TwoQueuesCache<K, V> implements ICache<K, V>, ISnapshotable<K, V>, IRefreshable<K, V> {
     
     /**
      * fifo缓存模型
@@ -50,15 +60,23 @@ public class TwoQueuesCache<K, V> implements ICache<K, V> {
      * 构造方法
      * @param config  配置对象
      * @param nodeFactory  链表节点对象创建工厂
+     * @throws IllegalArgumentException 元素上限或权重上限为1时，无法分给两个队列
      */
     public TwoQueuesCache(CacheConfig config, INodeFactory<K, V> nodeFactory){
-        //分配元素上限
-        this.lruConfig = CacheConfig.custom().setMaxElement(config.getMaxElement()/2);
-        if(config.getMaxElement()%2 == 0){
-            this.fifoConfig = CacheConfig.custom().setMaxElement(config.getMaxElement()/2);
-        }else{
-            this.fifoConfig = CacheConfig.custom().setMaxElement(config.getMaxElement()/2+1);
+        //分配元素上限，上限为0表示不限制，因此限制时每个队列至少为1，总上限至少为2，否则两个队列合计会超过上限
+        int maxElement = config.getMaxElement();
+        if(maxElement == 1){
+            throw new IllegalArgumentException("maxElement must be 0 or at least 2");
+        }
+        this.lruConfig = config.copy().setMaxElement(maxElement > 0 ? maxElement/2 : maxElement);
+        this.fifoConfig = config.copy().setMaxElement(maxElement > 0 ? maxElement - maxElement/2 : maxElement);
+        //分配权重上限
+        long maxWeight = config.getMaxWeight();
+        if(maxWeight == 1){
+            throw new IllegalArgumentException("maxWeight must be 0 or at least 2");
         }
+        this.lruConfig.setMaxWeight(maxWeight > 0 ? maxWeight/2 : maxWeight);
+        this.fifoConfig.setMaxWeight(maxWeight > 0 ? maxWeight - maxWeight/2 : maxWeight);
         this.nodeFactory = nodeFactory;
         
         this.lruCache = new LruCache<K, V>(lruConfig, nodeFactory);
@@ -67,36 +85,56 @@ public class TwoQueuesCache<K, V> implements ICache<K, V> {
     
     @Override
     public void put(K key, V value) {
-        
-        //新元素直接放入先进先出缓存
-        this.fifoCache.put(key, value);
-        
+        synchronized (this) {
+            //移除lru中的旧值，避免重复存储和权重重复计算
+            this.lruCache.remove(key, RemovalCause.REPLACED);
+            
+            //新元素直接放入先进先出缓存
+            this.fifoCache.put(key, value);
+        }
     }
 
     @Override
     public V get(K key) {
         //一级缓存取数据
-        NodeAbstract<K, V> node = this.fifoCache.getNode(key);
+        NodeAbstract<K, V> node = this.fifoCache.accessNode(key);
         
         if(node != null){
             //如果取到了，计数+1
             int usedCount = ((CacheNode<K, V>) node).usedCountIncrement();
             //判断是否满足热点数据条件
             if(usedCount >= this.hotLimit){
-                this.lruCache.put(key, node.getValue());
-                this.fifoCache.remove(key);
+                this.promote(node);
             }
             
             return node.getValue();
         }
         
-        node = this.lruCache.getNode(key);
-        
-        if(node != null){
-            return node.getValue();
-        }
-        
-        return null;
+        return this.lruCache.get(key);
+    }
+
+    /**
+     * 批量缓存，fifo和lru各加一次锁
+     */
+    @Override
+    public synchronized void putAll(Map<? extends K, ? extends V> map) {
+        this.lruCache.removeAll(map.keySet(), RemovalCause.REPLACED);
+        this.fifoCache.putAll(map);
+    }
+
+    /**
+     * 批量移除，fifo和lru各加一次锁
+     */
+    @Override
+    public synchronized void removeAll(Collection<? extends K> keys) {
+        this.fifoCache.removeAll(keys);
+        this.lruCache.removeAll(keys);
+    }
+
+    @Override
+    public synchronized void invalidateAll(BiPredicate<? super K, ? super V> predicate) {
+        this.fifoCache.invalidateAll(predicate);
+        this.lruCache.invalidateAll(predicate);
     }
 
     @Override
@@ -104,39 +142,108 @@ public class TwoQueuesCache<K, V> implements ICache<K, V> {
         return this.fifoCache.size() + this.lruCache.size();
     }
 
+    /**
+     * fifo中的元素数量，不加锁
+     * @return
+     */
+    public int fifoSize() {
+        return this.fifoCache.size();
+    }
+    
+    /**
+     * lru中的元素数量，不加锁
+     * @return
+     */
+    public int lruSize() {
+        return this.lruCache.size();
+    }
+
     @Override
-    public double hitRatio() {
-        double _hitCount = this.fifoCache.getHitCount().doubleValue() + this.lruCache.getHitCount().doubleValue();
-        double _missCount = this.fifoCache.getMissCount().doubleValue() + this.lruCache.getMissCount().doubleValue();
-        double dividend = _hitCount + _missCount;
+    public CacheStats stats() {
+        //fifo只记录命中，未命中由lru记录
+        return this.fifoCache.stats().plus(this.lruCache.stats());
+    }
+
+    @Override
+    public synchronized void clear() {
+        this.fifoCache.clear();
+        this.lruCache.clear();
+    }
+
+    @Override
+    public NodeAbstract<K, V> getNode(K key) {
+        NodeAbstract<K, V> node = this.fifoCache.getNode(key);
         
-        if(dividend == 0){
-            return 0.0d;
+        if(node != null){
+            return node;
         }
         
-        return _hitCount / dividend;
+        return this.lruCache.getNode(key);
     }
 
+    /**
+     * 在节点所在的队列中刷新
+     */
     @Override
-    public void clear() {
-        this.lruCache = new LruCache<K, V>(lruConfig, nodeFactory);
-        this.fifoCache = new FifoCache<K, V>(this.fifoConfig, nodeFactory);
+    public synchronized boolean refreshValue(NodeAbstract<K, V> node, V value) {
+        return this.fifoCache.refreshValue(node, value) || this.lruCache.refreshValue(node, value);
     }
 
+    /**
+     * 先取lru中的热点数据，再取fifo中的数据，各自由热到冷
+     */
     @Override
-    public NodeAbstract<K, V> getNode(K key) {
-        // TODO Auto-generated method stub
-        return null;
+    public synchronized List<NodeAbstract<K, V>> hottestNodes(int limit) {
+        List<NodeAbstract<K, V>> nodes = this.lruCache.hottestNodes(limit);
+        if(nodes.size() < limit){
+            nodes.addAll(this.fifoCache.hottestNodes(limit - nodes.size()));
+        }
+        return nodes;
+    }
+
+    /**
+     * 使用计数达到热点阈值的元素追加到lru，其余追加到fifo
+     */
+    @Override
+    public synchronized boolean appendColdest(K key, V value, int usedCount) {
+        if(this.fifoCache.getNode(key) != null || this.lruCache.getNode(key) != null){
+            return false;
+        }
+        if(usedCount >= this.hotLimit){
+            return this.lruCache.appendColdest(key, value, usedCount);
+        }
+        return this.fifoCache.appendColdest(key, value, usedCount);
+    }
+
+    /**
+     * 校验fifo和lru各自的链表，key同时存在于两个队列时由调用方通过size()发现
+     */
+    public void checkIntegrity() {
+        this.fifoCache.checkIntegrity();
+        this.lruCache.checkIntegrity();
     }
 
     @Override
-    public void remove(K key) {
+    public synchronized void remove(K key) {
         
         this.fifoCache.remove(key);
         this.lruCache.remove(key);
         
     }
     
-    
+    /**
+     * 节点从fifo转移到lru，保留写入时间等状态，转移不回调移除监听
+     * 节点已被其他线程晋升、覆盖、删除或淘汰时放弃
+     * @param node
+     */
+    private synchronized void promote(NodeAbstract<K, V> node) {
+        K key = node.getKey();
+        if(this.fifoCache.getNode(key) != node){
+            return;
+        }
+        if(this.fifoCache.remove(key, null) == node){
+            this.lruCache.putNode(node);
+        }
+    }
     
 }
@@ -0,0 +1,510 @@
+package io.github.msyysoft.java.utiltools.cache4j.disk;
+
+import io.github.msyysoft.java.utiltools.cache4j.serializer.ISerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+
+/**
+ * 基于内存映射文件的追加写日志存储
+ * 每次写入和删除都追加一条记录，内存中只保存key到记录位置的索引；重新打开文件时顺序回放日志重建索引。
+ * 被覆盖和删除的记录累计超过一半时，在后台线程中把存活记录复制到新文件并替换旧文件（压缩）。
+ * 压缩时只在开始和结束时短暂加锁：开始时记录索引快照，复制期间读写照常进行，结束时补上复制期间追加的记录再替换文件。
+ * 记录格式：[1字节类型][4字节key长度][4字节value长度][key][value]，类型0表示日志结束。
+ * 单个文件不超过2GB。
+ * @author 杨元
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class DiskStore<K, V> implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(DiskStore.class);
+
+    private static final byte TYPE_END = 0;
+
+    private static final byte TYPE_PUT = 1;
+
+    private static final byte TYPE_REMOVE = 2;
+
+    /**
+     * 记录头长度
+     */
+    private static final int HEADER_SIZE = 9;
+
+    /**
+     * 初始文件大小
+     */
+    private static final int INITIAL_CAPACITY = 16 * 1024 * 1024;
+
+    /**
+     * 文件大小上限
+     */
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    /**
+     * 触发压缩的最小无效数据量
+     */
+    private static final long COMPACT_THRESHOLD = 1024 * 1024;
+
+    /**
+     * 日志文件
+     */
+    private File file;
+
+    /**
+     * key序列化
+     */
+    private ISerializer<K> keySerializer;
+
+    /**
+     * value序列化
+     */
+    private ISerializer<V> valueSerializer;
+
+    private RandomAccessFile randomAccessFile;
+
+    private FileChannel channel;
+
+    private MappedByteBuffer buffer;
+
+    /**
+     * key到记录位置的索引
+     */
+    private Map<K, Integer> index = new HashMap<K, Integer>();
+
+    /**
+     * 下一条记录的写入位置
+     */
+    private int position;
+
+    /**
+     * 无效记录占用的字节数
+     */
+    private long deadBytes;
+
+    /**
+     * 后台压缩线程
+     */
+    private ExecutorService compactExecutor;
+
+    /**
+     * 是否已提交压缩任务
+     */
+    private boolean compactScheduled;
+
+    /**
+     * 压缩锁，同一时间只有一个压缩，清空和关闭需要等待压缩结束；先获取压缩锁再获取对象锁
+     */
+    private final Object compactLock = new Object();
+
+    /**
+     * 打开日志文件，文件已存在时回放日志重建索引
+     * @param file  日志文件
+     * @param keySerializer  key序列化
+     * @param valueSerializer  value序列化
+     * @throws IOException
+     */
+    public DiskStore(File file, ISerializer<K> keySerializer, ISerializer<V> valueSerializer) throws IOException {
+        this.file = file;
+        this.keySerializer = keySerializer;
+        this.valueSerializer = valueSerializer;
+        this.compactExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "cache4j-disk-compact");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.open();
+        this.replay();
+    }
+
+    /**
+     * 写入
+     * @param key
+     * @param value
+     */
+    public synchronized void put(K key, V value) {
+        byte[] keyBytes = this.keySerializer.serialize(key);
+        byte[] valueBytes = this.valueSerializer.serialize(value);
+
+        int offset = this.append(TYPE_PUT, keyBytes, valueBytes);
+        Integer old = this.index.put(key, offset);
+        if(old != null){
+            this.deadBytes += this.recordSize(old);
+        }
+        this.compactIfNeeded();
+    }
+
+    /**
+     * 读取
+     * @param key
+     * @return 不存在时返回null
+     */
+    public synchronized V get(K key) {
+        Integer offset = this.index.get(key);
+        if(offset == null){
+            return null;
+        }
+
+        int keyLength = this.buffer.getInt(offset + 1);
+        byte[] valueBytes = new byte[this.buffer.getInt(offset + 5)];
+        this.buffer.position(offset + HEADER_SIZE + keyLength);
+        this.buffer.get(valueBytes);
+        return this.valueSerializer.deserialize(valueBytes);
+    }
+
+    /**
+     * 是否包含
+     * @param key
+     * @return
+     */
+    public synchronized boolean contains(K key) {
+        return this.index.containsKey(key);
+    }
+
+    /**
+     * 删除，追加一条删除记录
+     * @param key
+     */
+    public synchronized void remove(K key) {
+        Integer old = this.index.remove(key);
+        if(old == null){
+            return;
+        }
+
+        int offset = this.append(TYPE_REMOVE, this.keySerializer.serialize(key), new byte[0]);
+        this.deadBytes += this.recordSize(old) + this.recordSize(offset);
+        this.compactIfNeeded();
+    }
+
+    /**
+     * 删除所有满足条件的元素，每个元素的值都需要反序列化
+     * @param predicate
+     */
+    public synchronized void removeIf(BiPredicate<? super K, ? super V> predicate) {
+        List<K> removed = new ArrayList<K>();
+        for(K key : this.index.keySet()){
+            if(predicate.test(key, this.get(key))){
+                removed.add(key);
+            }
+        }
+        for(K key : removed){
+            this.remove(key);
+        }
+    }
+
+    /**
+     * 元素数量
+     * @return
+     */
+    public synchronized int size() {
+        return this.index.size();
+    }
+
+    /**
+     * 清空，截断日志文件
+     * @throws IOException
+     */
+    public void clear() throws IOException {
+        //截断文件前等待压缩结束，避免压缩线程读取已截断的映射
+        synchronized (this.compactLock) {
+            synchronized (this) {
+                this.closeFile();
+                this.randomAccessFile = new RandomAccessFile(this.file, "rw");
+                this.randomAccessFile.setLength(0);
+                this.randomAccessFile.close();
+
+                this.index.clear();
+                this.position = 0;
+                this.deadBytes = 0;
+                this.open();
+            }
+        }
+    }
+
+    /**
+     * 压缩：存活记录复制到新文件后替换旧文件
+     * 复制快照中的记录时不持有对象锁，日志只追加不修改，已写入的记录在复制期间不会变化
+     * @throws IOException
+     */
+    public void compact() throws IOException {
+        synchronized (this.compactLock) {
+            Map<K, Integer> snapshot;
+            ByteBuffer source;
+            int snapshotPosition;
+            long liveBytes;
+            synchronized (this) {
+                snapshot = new HashMap<K, Integer>(this.index);
+                source = this.buffer.duplicate();
+                snapshotPosition = this.position;
+                liveBytes = this.position - this.deadBytes;
+            }
+
+            File compactFile = new File(this.file.getPath() + ".compact");
+            try (RandomAccessFile target = new RandomAccessFile(compactFile, "rw")) {
+                target.setLength(Math.max(INITIAL_CAPACITY, (int) Math.min(MAX_CAPACITY, liveBytes * 2)));
+                MappedByteBuffer targetBuffer = target.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, target.length());
+
+                Map<K, Integer> compactIndex = new HashMap<K, Integer>(snapshot.size() * 2);
+                int targetPosition = 0;
+                for(Map.Entry<K, Integer> entry : snapshot.entrySet()){
+                    int offset = entry.getValue();
+                    int size = recordSize(source, offset);
+                    targetBuffer = ensureCapacity(target, targetBuffer, (long) targetPosition + size + 1);
+                    copyRecord(source, offset, size, targetBuffer, targetPosition);
+                    compactIndex.put(entry.getKey(), targetPosition);
+                    targetPosition += size;
+                }
+                targetBuffer.put(targetPosition, TYPE_END);
+                targetBuffer.force();
+
+                synchronized (this) {
+                    //补上复制期间追加的记录，按日志回放的规则更新索引
+                    long compactDeadBytes = 0;
+                    int offset = snapshotPosition;
+                    while(offset < this.position){
+                        int size = this.recordSize(offset);
+                        byte type = this.buffer.get(offset);
+                        byte[] keyBytes = new byte[this.buffer.getInt(offset + 1)];
+                        this.buffer.position(offset + HEADER_SIZE);
+                        this.buffer.get(keyBytes);
+                        K key = this.keySerializer.deserialize(keyBytes);
+
+                        targetBuffer = ensureCapacity(target, targetBuffer, (long) targetPosition + size + 1);
+                        copyRecord(this.buffer.duplicate(), offset, size, targetBuffer, targetPosition);
+                        Integer old = type == TYPE_PUT ? compactIndex.put(key, targetPosition) : compactIndex.remove(key);
+                        if(old != null){
+                            compactDeadBytes += recordSize(targetBuffer, old);
+                        }
+                        if(type == TYPE_REMOVE){
+                            compactDeadBytes += size;
+                        }
+                        targetPosition += size;
+                        offset += size;
+                    }
+                    targetBuffer.put(targetPosition, TYPE_END);
+                    targetBuffer.force();
+
+                    this.closeFile();
+                    try {
+                        Files.move(compactFile.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                        this.index = compactIndex;
+                        this.position = targetPosition;
+                        this.deadBytes = compactDeadBytes;
+                    } finally {
+                        //替换失败时重新打开原文件
+                        this.open();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 刷盘并关闭文件
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        this.compactExecutor.shutdown();
+        try {
+            this.compactExecutor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this.compactLock) {
+            synchronized (this) {
+                this.closeFile();
+            }
+        }
+    }
+
+    /**
+     * 打开并映射文件
+     * @throws IOException
+     */
+    private void open() throws IOException {
+        this.randomAccessFile = new RandomAccessFile(this.file, "rw");
+        if(this.randomAccessFile.length() < INITIAL_CAPACITY){
+            this.randomAccessFile.setLength(INITIAL_CAPACITY);
+        }
+        this.channel = this.randomAccessFile.getChannel();
+        this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, this.randomAccessFile.length());
+    }
+
+    private void closeFile() throws IOException {
+        if(this.buffer != null){
+            this.buffer.force();
+        }
+        if(this.channel != null){
+            this.channel.close();
+        }
+        if(this.randomAccessFile != null){
+            this.randomAccessFile.close();
+        }
+    }
+
+    /**
+     * 顺序回放日志，重建索引
+     */
+    private void replay() {
+        int capacity = this.buffer.capacity();
+        int offset = 0;
+        while(offset + HEADER_SIZE <= capacity){
+            byte type = this.buffer.get(offset);
+            if(type != TYPE_PUT && type != TYPE_REMOVE){
+                break;
+            }
+            int keyLength = this.buffer.getInt(offset + 1);
+            int valueLength = this.buffer.getInt(offset + 5);
+            int size = HEADER_SIZE + keyLength + valueLength;
+            if(keyLength < 0 || valueLength < 0 || offset + size > capacity){
+                //尾部记录不完整，丢弃
+                break;
+            }
+
+            byte[] keyBytes = new byte[keyLength];
+            this.buffer.position(offset + HEADER_SIZE);
+            this.buffer.get(keyBytes);
+            K key = this.keySerializer.deserialize(keyBytes);
+
+            Integer old = type == TYPE_PUT ? this.index.put(key, offset) : this.index.remove(key);
+            if(old != null){
+                this.deadBytes += this.recordSize(old);
+            }
+            if(type == TYPE_REMOVE){
+                this.deadBytes += size;
+            }
+            offset += size;
+        }
+        this.position = offset;
+    }
+
+    /**
+     * 追加一条记录
+     * @return 记录位置
+     */
+    private int append(byte type, byte[] keyBytes, byte[] valueBytes) {
+        int size = HEADER_SIZE + keyBytes.length + valueBytes.length;
+        this.ensureCapacity((long) this.position + size + 1);
+
+        int offset = this.position;
+        this.buffer.position(offset);
+        this.buffer.put(type);
+        this.buffer.putInt(keyBytes.length);
+        this.buffer.putInt(valueBytes.length);
+        this.buffer.put(keyBytes);
+        this.buffer.put(valueBytes);
+        //结束标记，回放时遇到即停止
+        this.buffer.put(TYPE_END);
+
+        this.position = offset + size;
+        return offset;
+    }
+
+    /**
+     * 容量不足时扩大文件并重新映射
+     * @param required
+     */
+    private void ensureCapacity(long required) {
+        if(required <= this.buffer.capacity()){
+            return;
+        }
+        if(required > MAX_CAPACITY){
+            throw new IllegalStateException("disk store is full: " + this.file);
+        }
+        try {
+            long capacity = Math.min(MAX_CAPACITY, Math.max(required, (long) this.buffer.capacity() * 2));
+            this.buffer.force();
+            this.randomAccessFile.setLength(capacity);
+            this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        } catch (IOException e) {
+            throw new IllegalStateException("disk store resize failed: " + this.file, e);
+        }
+    }
+
+    /**
+     * 记录长度
+     * @param offset
+     * @return
+     */
+    private int recordSize(int offset) {
+        return recordSize(this.buffer, offset);
+    }
+
+    private static int recordSize(ByteBuffer buffer, int offset) {
+        return HEADER_SIZE + buffer.getInt(offset + 1) + buffer.getInt(offset + 5);
+    }
+
+    /**
+     * 复制一条记录，source的position被修改
+     */
+    private static void copyRecord(ByteBuffer source, int offset, int size, ByteBuffer target, int targetPosition) {
+        source.limit(offset + size);
+        source.position(offset);
+        target.position(targetPosition);
+        target.put(source);
+        source.limit(source.capacity());
+    }
+
+    /**
+     * 压缩文件容量不足时扩大并重新映射
+     */
+    private static MappedByteBuffer ensureCapacity(RandomAccessFile target, MappedByteBuffer targetBuffer, long required) throws IOException {
+        if(required <= targetBuffer.capacity()){
+            return targetBuffer;
+        }
+        if(required > MAX_CAPACITY){
+            throw new IOException("compacted disk store exceeds " + MAX_CAPACITY + " bytes");
+        }
+        long capacity = Math.min(MAX_CAPACITY, Math.max(required, (long) targetBuffer.capacity() * 2));
+        targetBuffer.force();
+        target.setLength(capacity);
+        return target.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    /**
+     * 无效数据超过一半时提交后台压缩
+     */
+    private void compactIfNeeded() {
+        if(this.compactScheduled || this.deadBytes < COMPACT_THRESHOLD || this.deadBytes * 2 < this.position){
+            return;
+        }
+        this.compactScheduled = true;
+        try {
+            this.compactExecutor.execute(() -> {
+                try {
+                    this.compact();
+                } catch (IOException e) {
+                    log.error("disk store compact failed: " + this.file, e);
+                } finally {
+                    synchronized (this) {
+                        this.compactScheduled = false;
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            //已关闭
+            this.compactScheduled = false;
+        }
+    }
+
+}
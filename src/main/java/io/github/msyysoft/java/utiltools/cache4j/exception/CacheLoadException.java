@@ -0,0 +1,32 @@
+package io.github.msyysoft.java.utiltools.cache4j.exception;
+
+/**
+ * 缓存加载异常
+ * 包装加载函数抛出的异常，等待同一次加载的所有调用方收到同一个异常
+ * @author 杨元
+ *
+ */
+public class CacheLoadException extends RuntimeException {
+    
+    private static final long serialVersionUID = 3829512637841294613L;
+    
+    public CacheLoadException(Throwable e){
+        super(e);
+    }
+    
+    /**
+     * @param message  异常消息
+     */
+    public CacheLoadException(String message){
+        super(message);
+    }
+    
+    /**
+     * @param message  异常消息
+     * @param e  异常
+     */
+    public CacheLoadException(String message, Throwable e){
+        super(message, e);
+    }
+    
+}
@@ -0,0 +1,22 @@
+package io.github.msyysoft.java.utiltools.cache4j.invalidation;
+
+/**
+ * 失效消息监听接口
+ * 在总线的接收线程中回调，处理应尽量简短
+ * @author 杨元
+ *
+ */
+public interface IInvalidationListener {
+    
+    /**
+     * 其他进程修改或删除了某个key
+     * @param key  序列化后的key
+     */
+    public void onInvalidate(byte[] key);
+    
+    /**
+     * 其他进程要求整个缓存失效
+     */
+    public void onInvalidateAll();
+    
+}
@@ -0,0 +1,422 @@
+package io.github.msyysoft.java.utiltools.cache4j.invalidation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.MulticastSocket;
+import java.net.SocketException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 基于UDP组播的缓存失效总线
+ * 同一主机（或网段）上的多个进程加入同一个组播地址，本地缓存修改或删除key时发布失效消息，
+ * 其他进程收到后删除本地缓存中的同名key。发布的key先在内存中按缓存名称合并去重，
+ * 定时批量发送，一个数据包中包含多个缓存的多个key；同一个缓存待发送的key过多时合并为整个缓存失效。
+ * UDP不保证送达，失效消息可能丢失，缓存仍应配置过期时间作为兜底。
+ * 数据包格式：[2字节魔数][1字节版本][8字节发送方id][2字节条数]，
+ * 每条为[1字节类型][2字节缓存名称长度][缓存名称]，类型为key时再跟[2字节key长度][key]。
+ * @author 杨元
+ *
+ */
+public class InvalidationBus implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(InvalidationBus.class);
+
+    private static final short MAGIC = (short) 0xCA4B;
+
+    private static final byte VERSION = 1;
+
+    private static final byte TYPE_KEY = 1;
+
+    private static final byte TYPE_ALL = 2;
+
+    /**
+     * 数据包头长度
+     */
+    private static final int HEADER_SIZE = 13;
+
+    /**
+     * 单个数据包上限，小于常见MTU，避免IP分片
+     */
+    private static final int MAX_PACKET_SIZE = 1400;
+
+    /**
+     * 接收缓冲区大小，UDP数据包上限
+     */
+    private static final int RECEIVE_BUFFER_SIZE = 65507;
+
+    /**
+     * 单个缓存待发送key数量上限，超过时合并为整个缓存失效
+     */
+    private static final int MAX_PENDING_KEYS = 10000;
+
+    /**
+     * 默认批量发送间隔，毫秒
+     */
+    public static final long DEFAULT_FLUSH_INTERVAL = 10L;
+
+    /**
+     * 本进程的发送方id，用于忽略自己发出的消息
+     */
+    private final long senderId = new SecureRandom().nextLong();
+
+    private InetAddress group;
+
+    private int port;
+
+    private MulticastSocket socket;
+
+    /**
+     * 缓存名称到监听的映射
+     */
+    private Map<String, IInvalidationListener> listeners = new ConcurrentHashMap<String, IInvalidationListener>();
+
+    /**
+     * 待发送的key，按缓存名称合并，key以ByteBuffer包装以便按内容去重
+     */
+    private Map<String, Set<ByteBuffer>> pendingKeys = new LinkedHashMap<String, Set<ByteBuffer>>();
+
+    /**
+     * 待发送的整个缓存失效
+     */
+    private Set<String> pendingAll = new LinkedHashSet<String>();
+
+    /**
+     * 发送锁，保证数据包按顺序发出
+     */
+    private final Object sendLock = new Object();
+
+    private ScheduledExecutorService publishExecutor;
+
+    private Thread receiveThread;
+
+    private volatile boolean closed;
+
+    private LongAdder sentPacketCount = new LongAdder();
+
+    private LongAdder receivedPacketCount = new LongAdder();
+
+    /**
+     * 加入组播地址，仅本机可见，默认10毫秒批量发送一次
+     * @param group  组播地址，例如239.255.27.1
+     * @param port  端口
+     * @throws IOException
+     */
+    public InvalidationBus(String group, int port) throws IOException {
+        this(InetAddress.getByName(group), port, 0, DEFAULT_FLUSH_INTERVAL);
+    }
+
+    /**
+     * 加入组播地址
+     * @param group  组播地址
+     * @param port  端口
+     * @param timeToLive  组播TTL，0表示仅本机，1表示本网段
+     * @param flushIntervalMillis  批量发送间隔，毫秒
+     * @throws IOException
+     */
+    public InvalidationBus(InetAddress group, int port, int timeToLive, long flushIntervalMillis) throws IOException {
+        if(!group.isMulticastAddress()){
+            throw new IllegalArgumentException("not a multicast address: " + group);
+        }
+        if(flushIntervalMillis <= 0){
+            throw new IllegalArgumentException("flushIntervalMillis must be greater than 0");
+        }
+        this.group = group;
+        this.port = port;
+
+        //同一主机上的多个进程绑定同一端口，构造方法已开启地址复用
+        this.socket = new MulticastSocket(port);
+        this.socket.setTimeToLive(timeToLive);
+        //false表示开启回环，同一主机上的其他进程才能收到
+        this.socket.setLoopbackMode(false);
+        this.socket.joinGroup(group);
+
+        this.receiveThread = new Thread(this::receiveLoop, "cache4j-invalidation-receive");
+        this.receiveThread.setDaemon(true);
+        this.receiveThread.start();
+
+        this.publishExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "cache4j-invalidation-publish");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.publishExecutor.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 订阅某个缓存的失效消息，同一名称只能有一个订阅
+     * @param cacheName  缓存名称，各进程中同一份数据的缓存必须使用相同名称
+     * @param listener
+     */
+    public void subscribe(String cacheName, IInvalidationListener listener) {
+        if(this.listeners.putIfAbsent(cacheName, listener) != null){
+            throw new IllegalStateException("cache already subscribed: " + cacheName);
+        }
+    }
+
+    /**
+     * 取消订阅
+     * @param cacheName
+     */
+    public void unsubscribe(String cacheName) {
+        this.listeners.remove(cacheName);
+    }
+
+    /**
+     * 发布key失效，在下一次批量发送时发出
+     * @param cacheName  缓存名称
+     * @param key  序列化后的key
+     */
+    public synchronized void publish(String cacheName, byte[] key) {
+        if(this.closed || this.pendingAll.contains(cacheName)){
+            return;
+        }
+
+        Set<ByteBuffer> keys = this.pendingKeys.get(cacheName);
+        if(keys == null){
+            keys = new LinkedHashSet<ByteBuffer>();
+            this.pendingKeys.put(cacheName, keys);
+        }
+        keys.add(ByteBuffer.wrap(key));
+
+        if(keys.size() > MAX_PENDING_KEYS){
+            this.publishAll(cacheName);
+        }
+    }
+
+    /**
+     * 发布整个缓存失效，在下一次批量发送时发出
+     * @param cacheName  缓存名称
+     */
+    public synchronized void publishAll(String cacheName) {
+        if(this.closed){
+            return;
+        }
+        this.pendingKeys.remove(cacheName);
+        this.pendingAll.add(cacheName);
+    }
+
+    /**
+     * 立即发送所有待发送的失效消息
+     * @throws IOException
+     */
+    public void flush() throws IOException {
+        synchronized (this.sendLock) {
+            Map<String, Set<ByteBuffer>> keys;
+            Set<String> all;
+            synchronized (this) {
+                if(this.pendingKeys.isEmpty() && this.pendingAll.isEmpty()){
+                    return;
+                }
+                keys = this.pendingKeys;
+                all = this.pendingAll;
+                this.pendingKeys = new LinkedHashMap<String, Set<ByteBuffer>>();
+                this.pendingAll = new LinkedHashSet<String>();
+            }
+
+            PacketWriter writer = new PacketWriter();
+            for(String cacheName : all){
+                writer.add(TYPE_ALL, cacheName.getBytes(StandardCharsets.UTF_8), null);
+            }
+            for(Map.Entry<String, Set<ByteBuffer>> entry : keys.entrySet()){
+                byte[] name = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                for(ByteBuffer key : entry.getValue()){
+                    if(!writer.add(TYPE_KEY, name, key.array())){
+                        //单个key超过数据包上限，改为整个缓存失效
+                        writer.add(TYPE_ALL, name, null);
+                        break;
+                    }
+                }
+            }
+            writer.send();
+        }
+    }
+
+    /**
+     * 发送剩余消息，退出组播并关闭连接
+     */
+    @Override
+    public void close() throws IOException {
+        this.publishExecutor.shutdown();
+        try {
+            this.publishExecutor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            this.flush();
+        } finally {
+            this.closed = true;
+            try {
+                this.socket.leaveGroup(this.group);
+            } finally {
+                this.socket.close();
+            }
+        }
+    }
+
+    /**
+     * 已发送的数据包数量
+     * @return
+     */
+    public long sentPacketCount() {
+        return this.sentPacketCount.sum();
+    }
+
+    /**
+     * 收到的其他进程数据包数量
+     * @return
+     */
+    public long receivedPacketCount() {
+        return this.receivedPacketCount.sum();
+    }
+
+    private void flushQuietly() {
+        try {
+            this.flush();
+        } catch (IOException | RuntimeException e) {
+            log.warn("cache invalidation publish failed", e);
+        }
+    }
+
+    private void receiveLoop() {
+        byte[] buffer = new byte[RECEIVE_BUFFER_SIZE];
+        while(!this.closed){
+            DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+            try {
+                this.socket.receive(packet);
+            } catch (SocketException e) {
+                if(this.closed){
+                    return;
+                }
+                log.warn("cache invalidation receive failed", e);
+                continue;
+            } catch (IOException e) {
+                log.warn("cache invalidation receive failed", e);
+                continue;
+            }
+
+            try {
+                this.dispatch(ByteBuffer.wrap(packet.getData(), packet.getOffset(), packet.getLength()));
+            } catch (BufferUnderflowException e) {
+                log.debug("malformed cache invalidation packet from " + packet.getAddress());
+            }
+        }
+    }
+
+    /**
+     * 解析数据包并回调监听，忽略自己发出的和格式不符的数据包
+     * @param buffer
+     */
+    private void dispatch(ByteBuffer buffer) {
+        if(buffer.getShort() != MAGIC || buffer.get() != VERSION || buffer.getLong() == this.senderId){
+            return;
+        }
+        this.receivedPacketCount.increment();
+
+        int count = buffer.getShort() & 0xFFFF;
+        for(int i = 0; i < count; i++){
+            byte type = buffer.get();
+            byte[] name = new byte[buffer.getShort() & 0xFFFF];
+            buffer.get(name);
+            byte[] key = null;
+            if(type == TYPE_KEY){
+                key = new byte[buffer.getShort() & 0xFFFF];
+                buffer.get(key);
+            }
+
+            IInvalidationListener listener = this.listeners.get(new String(name, StandardCharsets.UTF_8));
+            if(listener == null){
+                continue;
+            }
+            try {
+                if(type == TYPE_KEY){
+                    listener.onInvalidate(key);
+                }else if(type == TYPE_ALL){
+                    listener.onInvalidateAll();
+                }
+            } catch (RuntimeException e) {
+                log.warn("cache invalidation listener failed", e);
+            }
+        }
+    }
+
+    /**
+     * 组装数据包，写满时自动发送
+     */
+    private class PacketWriter {
+
+        private ByteBuffer buffer = ByteBuffer.allocate(MAX_PACKET_SIZE);
+
+        private int count;
+
+        private PacketWriter() {
+            this.reset();
+        }
+
+        /**
+         * 追加一条消息
+         * @param type
+         * @param name
+         * @param key  类型为TYPE_ALL时为null
+         * @return 消息超过单个数据包上限时返回false
+         * @throws IOException
+         */
+        private boolean add(byte type, byte[] name, byte[] key) throws IOException {
+            int size = 3 + name.length + (key == null ? 0 : 2 + key.length);
+            if(HEADER_SIZE + size > MAX_PACKET_SIZE){
+                return false;
+            }
+            if(size > this.buffer.remaining() || this.count == 0xFFFF){
+                this.send();
+            }
+
+            this.buffer.put(type);
+            this.buffer.putShort((short) name.length);
+            this.buffer.put(name);
+            if(key != null){
+                this.buffer.putShort((short) key.length);
+                this.buffer.put(key);
+            }
+            this.count++;
+            return true;
+        }
+
+        private void send() throws IOException {
+            if(this.count == 0){
+                return;
+            }
+            this.buffer.putShort(HEADER_SIZE - 2, (short) this.count);
+            socket.send(new DatagramPacket(this.buffer.array(), this.buffer.position(), group, port));
+            sentPacketCount.increment();
+            this.reset();
+        }
+
+        private void reset() {
+            this.buffer.clear();
+            this.buffer.putShort(MAGIC);
+            this.buffer.put(VERSION);
+            this.buffer.putLong(senderId);
+            this.buffer.putShort((short) 0);
+            this.count = 0;
+        }
+
+    }
+
+}
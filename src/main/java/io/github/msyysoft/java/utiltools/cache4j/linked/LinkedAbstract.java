@@ -5,6 +5,7 @@ import io.github.msyysoft.java.utiltools.cache4j.node.impl.GuardNode;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Consumer;
 
 
 /**
@@ -28,9 +29,11 @@ public abstract class LinkedAbstract<K, V> {
      * 用于查找链表节点的map
      * 使得查找节点的时间为O(1)
      */
-    private Map<K, NodeAbstract<K, V>> searchMap = new HashMap<K, NodeAbstract<K, V>>();
+    private Map<K, NodeAbstract<K, V>> searchMap = null;
     
     public LinkedAbstract() {
+        this.searchMap = this.createSearchMap();
+        
         //初始化一个“空”链表
         this.headNode = new GuardNode<K, V>();
         this.tailNode = this.headNode;
@@ -172,6 +175,30 @@ public abstract class LinkedAbstract<K, V> {
         }
     }
     
+    /**
+     * 查看链表头节点，不删除
+     * @return 链表为空时返回null
+     */
+    public NodeAbstract<K, V> first(){
+        
+        NodeAbstract<K, V> node = this.headNode.getNextNode();
+        
+        return node instanceof GuardNode ? null : node;
+        
+    }
+    
+    /**
+     * 查看链表尾节点，不删除
+     * @return 链表为空时返回null
+     */
+    public NodeAbstract<K, V> last(){
+        
+        NodeAbstract<K, V> node = this.tailNode.getPrevNode();
+        
+        return node instanceof GuardNode ? null : node;
+        
+    }
+    
     /**
      * 链表元素个数
      * @return
@@ -182,6 +209,66 @@ public abstract class LinkedAbstract<K, V> {
         
     }
     
+    /**
+     * 从头到尾遍历节点，回调中可以删除当前节点
+     * @param action
+     */
+    public void forEachNode(Consumer<NodeAbstract<K, V>> action){
+        
+        NodeAbstract<K, V> node = this.headNode.getNextNode();
+        
+        while(!(node instanceof GuardNode)){
+            NodeAbstract<K, V> next = node.getNextNode();
+            action.accept(node);
+            node = next;
+        }
+        
+    }
+    
+    /**
+     * 校验链表指针与查找map是否一致，不一致时抛出IllegalStateException
+     * 调用方必须保证校验期间链表不被修改
+     */
+    public void checkIntegrity(){
+        
+        int size = this.size();
+        int count = 0;
+        NodeAbstract<K, V> prev = this.headNode;
+        NodeAbstract<K, V> node = this.headNode.getNextNode();
+        
+        while(!(node instanceof GuardNode)){
+            if(node.getPrevNode() != prev){
+                throw new IllegalStateException("broken prev link, key: " + node.getKey());
+            }
+            if(this.searchMap.get(node.getKey()) != node){
+                throw new IllegalStateException("node not in search map, key: " + node.getKey());
+            }
+            if(++count > size){
+                throw new IllegalStateException("list longer than search map, size: " + size);
+            }
+            prev = node;
+            node = node.getNextNode();
+        }
+        
+        if(node != this.headNode || this.headNode.getPrevNode() != prev){
+            throw new IllegalStateException("list is not closed by guard node");
+        }
+        if(count != size){
+            throw new IllegalStateException("list length " + count + " != search map size " + size);
+        }
+        
+    }
+    
+    /**
+     * 创建查找map，子类可覆盖以提供线程安全的实现
+     * @return
+     */
+    protected Map<K, NodeAbstract<K, V>> createSearchMap(){
+        
+        return new HashMap<K, NodeAbstract<K, V>>();
+        
+    }
+    
     /**
      * 将节点存入查找map
      * @param node
@@ -0,0 +1,24 @@
+package io.github.msyysoft.java.utiltools.cache4j.linked.impl;
+
+import io.github.msyysoft.java.utiltools.cache4j.linked.LinkedAbstract;
+import io.github.msyysoft.java.utiltools.cache4j.node.NodeAbstract;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 查找map线程安全的缓存链表实现
+ * 链表结构的修改仍需外部加锁，按key查找节点可以无锁并发执行
+ * @author 杨元
+ *
+ */
+public class ConcurrentCacheLinked<K, V> extends LinkedAbstract<K, V> {
+
+    @Override
+    protected Map<K, NodeAbstract<K, V>> createSearchMap() {
+        
+        return new ConcurrentHashMap<K, NodeAbstract<K, V>>();
+        
+    }
+    
+}
@@ -0,0 +1,152 @@
+package io.github.msyysoft.java.utiltools.cache4j.metrics;
+
+import io.github.msyysoft.java.utiltools.cache4j.core.ICache;
+import io.github.msyysoft.java.utiltools.cache4j.core.impl.TwoQueuesCache;
+import io.github.msyysoft.java.utiltools.cache4j.stats.CacheStats;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个缓存的监控指标
+ * 所有指标在读取时从缓存的size()和stats()计算，不持有缓存的锁，并发修改时为近似值。
+ * @author 杨元
+ *
+ */
+public class CacheMetrics implements CacheMetricsMBean {
+
+    /**
+     * 淘汰速率的最小采样间隔，纳秒
+     */
+    private static final long RATE_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * 缓存名称
+     */
+    private String name;
+
+    /**
+     * 缓存
+     */
+    private ICache<?, ?> cache;
+
+    /**
+     * 元素数量上限
+     */
+    private int capacity;
+
+    /**
+     * 上次采样的淘汰次数
+     */
+    private long lastEvictionCount;
+
+    /**
+     * 上次采样时间
+     */
+    private long lastSampleTime;
+
+    /**
+     * 上次采样计算出的淘汰速率
+     */
+    private double evictionRate;
+
+    public CacheMetrics(String name, ICache<?, ?> cache, int capacity){
+        this.name = name;
+        this.cache = cache;
+        this.capacity = capacity;
+        this.lastSampleTime = System.nanoTime();
+    }
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public int getSize() {
+        return this.cache.size();
+    }
+
+    @Override
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    @Override
+    public long getHitCount() {
+        return this.cache.stats().getHitCount();
+    }
+
+    @Override
+    public long getMissCount() {
+        return this.cache.stats().getMissCount();
+    }
+
+    @Override
+    public double getHitRatio() {
+        return this.cache.stats().hitRate();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return this.cache.stats().evictionCount();
+    }
+
+    @Override
+    public double getEvictionRate() {
+        return this.sampleEvictionRate(this.cache.stats().evictionCount());
+    }
+
+    @Override
+    public int getFifoSize() {
+        return this.cache instanceof TwoQueuesCache ? ((TwoQueuesCache<?, ?>) this.cache).fifoSize() : -1;
+    }
+
+    @Override
+    public int getLruSize() {
+        return this.cache instanceof TwoQueuesCache ? ((TwoQueuesCache<?, ?>) this.cache).lruSize() : -1;
+    }
+
+    /**
+     * 一次性读取所有指标，统计只取一次快照
+     * @return 指标名到指标值，按固定顺序排列
+     */
+    public Map<String, Number> snapshot() {
+        CacheStats stats = this.cache.stats();
+        Map<String, Number> values = new LinkedHashMap<String, Number>();
+        values.put("size", this.getSize());
+        values.put("capacity", this.capacity);
+        values.put("hit_count", stats.getHitCount());
+        values.put("miss_count", stats.getMissCount());
+        values.put("hit_ratio", stats.hitRate());
+        values.put("eviction_count", stats.evictionCount());
+        values.put("eviction_rate", this.sampleEvictionRate(stats.evictionCount()));
+        if(this.cache instanceof TwoQueuesCache){
+            values.put("fifo_size", this.getFifoSize());
+            values.put("lru_size", this.getLruSize());
+        }
+        return values;
+    }
+
+    /**
+     * 距上次采样超过采样间隔时重新计算淘汰速率，否则返回上次的结果
+     * @param evictionCount
+     * @return
+     */
+    private synchronized double sampleEvictionRate(long evictionCount) {
+        long now = System.nanoTime();
+        long elapsed = now - this.lastSampleTime;
+        if(elapsed >= RATE_INTERVAL){
+            this.evictionRate = (evictionCount - this.lastEvictionCount) * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+            this.lastEvictionCount = evictionCount;
+            this.lastSampleTime = now;
+        }
+        return this.evictionRate;
+    }
+
+    public ICache<?, ?> getCache() {
+        return cache;
+    }
+
+}
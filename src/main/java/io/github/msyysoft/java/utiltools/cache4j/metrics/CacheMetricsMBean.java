@@ -0,0 +1,70 @@
+package io.github.msyysoft.java.utiltools.cache4j.metrics;
+
+/**
+ * 缓存监控指标MBean接口
+ * @author 杨元
+ *
+ */
+public interface CacheMetricsMBean {
+
+    /**
+     * 缓存名称
+     * @return
+     */
+    public String getName();
+
+    /**
+     * 元素数量
+     * @return
+     */
+    public int getSize();
+
+    /**
+     * 元素数量上限，0表示不限制
+     * @return
+     */
+    public int getCapacity();
+
+    /**
+     * 命中次数
+     * @return
+     */
+    public long getHitCount();
+
+    /**
+     * 未命中次数
+     * @return
+     */
+    public long getMissCount();
+
+    /**
+     * 命中率
+     * @return
+     */
+    public double getHitRatio();
+
+    /**
+     * 淘汰总次数（容量淘汰和过期）
+     * @return
+     */
+    public long getEvictionCount();
+
+    /**
+     * 最近一个采样周期内每秒淘汰次数
+     * @return
+     */
+    public double getEvictionRate();
+
+    /**
+     * TwoQueuesCache中fifo的元素数量，其他缓存返回-1
+     * @return
+     */
+    public int getFifoSize();
+
+    /**
+     * TwoQueuesCache中lru的元素数量，其他缓存返回-1
+     * @return
+     */
+    public int getLruSize();
+
+}
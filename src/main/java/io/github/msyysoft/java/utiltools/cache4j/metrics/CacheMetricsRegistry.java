@@ -0,0 +1,176 @@
+package io.github.msyysoft.java.utiltools.cache4j.metrics;
+
+import io.github.msyysoft.java.utiltools.cache4j.core.ICache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 缓存监控注册表
+ * 按名称登记缓存，同时注册为JMX MBean（io.github.msyysoft.cache4j:type=Cache,name=缓存名称），
+ * 并提供可供定时抓取的快照和Prometheus文本格式输出。读取指标不持有缓存的锁。
+ * @author 杨元
+ *
+ */
+public class CacheMetricsRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheMetricsRegistry.class);
+
+    /**
+     * JMX域名
+     */
+    public static final String JMX_DOMAIN = "io.github.msyysoft.cache4j";
+
+    private static final CacheMetricsRegistry instance = new CacheMetricsRegistry(ManagementFactory.getPlatformMBeanServer());
+
+    /**
+     * MBean服务，为null时不注册JMX
+     */
+    private MBeanServer mBeanServer;
+
+    /**
+     * 已登记的缓存，按名称排序
+     */
+    private ConcurrentSkipListMap<String, CacheMetrics> metricsMap = new ConcurrentSkipListMap<String, CacheMetrics>();
+
+    /**
+     * 构造方法
+     * @param mBeanServer  MBean服务，为null时只提供快照，不注册JMX
+     */
+    public CacheMetricsRegistry(MBeanServer mBeanServer){
+        this.mBeanServer = mBeanServer;
+    }
+
+    /**
+     * 使用平台MBean服务的全局注册表
+     * @return
+     */
+    public static CacheMetricsRegistry getInstance() {
+        return instance;
+    }
+
+    /**
+     * 登记缓存，同名缓存已存在时替换
+     * @param name  缓存名称
+     * @param cache  缓存
+     * @param capacity  元素数量上限，一般为config.getMaxElement()
+     * @return 缓存的监控指标
+     */
+    public CacheMetrics register(String name, ICache<?, ?> cache, int capacity) {
+        CacheMetrics metrics = new CacheMetrics(name, cache, capacity);
+        CacheMetrics old = this.metricsMap.put(name, metrics);
+        if(old != null){
+            this.unregisterMBean(name);
+        }
+        this.registerMBean(name, metrics);
+        return metrics;
+    }
+
+    /**
+     * 注销缓存
+     * @param name  缓存名称
+     */
+    public void unregister(String name) {
+        if(this.metricsMap.remove(name) != null){
+            this.unregisterMBean(name);
+        }
+    }
+
+    /**
+     * 获取缓存的监控指标
+     * @param name  缓存名称
+     * @return 未登记时返回null
+     */
+    public CacheMetrics get(String name) {
+        return this.metricsMap.get(name);
+    }
+
+    /**
+     * 所有已登记缓存的监控指标
+     * @return
+     */
+    public Collection<CacheMetrics> getAll() {
+        return this.metricsMap.values();
+    }
+
+    /**
+     * 所有缓存的指标快照
+     * @return 缓存名称到指标的映射，按名称排序
+     */
+    public Map<String, Map<String, Number>> snapshot() {
+        Map<String, Map<String, Number>> snapshot = new LinkedHashMap<String, Map<String, Number>>();
+        for(CacheMetrics metrics : this.metricsMap.values()){
+            snapshot.put(metrics.getName(), metrics.snapshot());
+        }
+        return snapshot;
+    }
+
+    /**
+     * Prometheus文本格式输出，指标名为cache4j_指标，缓存名称作为cache标签
+     * @return
+     */
+    public String scrape() {
+        Map<String, StringBuilder> families = new LinkedHashMap<String, StringBuilder>();
+        for(Map.Entry<String, Map<String, Number>> cacheEntry : this.snapshot().entrySet()){
+            String label = "{cache=\"" + escape(cacheEntry.getKey()) + "\"} ";
+            for(Map.Entry<String, Number> entry : cacheEntry.getValue().entrySet()){
+                String metricName = "cache4j_" + entry.getKey();
+                StringBuilder family = families.get(metricName);
+                if(family == null){
+                    family = new StringBuilder();
+                    family.append("# TYPE ").append(metricName)
+                            .append(entry.getKey().endsWith("_count") ? " counter\n" : " gauge\n");
+                    families.put(metricName, family);
+                }
+                family.append(metricName).append(label).append(entry.getValue()).append('\n');
+            }
+        }
+
+        StringBuilder text = new StringBuilder();
+        for(StringBuilder family : families.values()){
+            text.append(family);
+        }
+        return text.toString();
+    }
+
+    private void registerMBean(String name, CacheMetrics metrics) {
+        if(this.mBeanServer == null){
+            return;
+        }
+        try {
+            this.mBeanServer.registerMBean(metrics, objectName(name));
+        } catch (Exception e) {
+            log.warn("register cache mbean failed, name: " + name, e);
+        }
+    }
+
+    private void unregisterMBean(String name) {
+        if(this.mBeanServer == null){
+            return;
+        }
+        try {
+            ObjectName objectName = objectName(name);
+            if(this.mBeanServer.isRegistered(objectName)){
+                this.mBeanServer.unregisterMBean(objectName);
+            }
+        } catch (Exception e) {
+            log.warn("unregister cache mbean failed, name: " + name, e);
+        }
+    }
+
+    private static ObjectName objectName(String name) throws Exception {
+        return new ObjectName(JMX_DOMAIN + ":type=Cache,name=" + ObjectName.quote(name));
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+}
@@ -23,9 +23,9 @@ public abstract class NodeAbstract<K, V> {
     private K key;
     
     /**
-     * 节点值
+     * 节点值，后台刷新时会被替换
      */
-    private V value;
+    private volatile V value;
 
 
     public NodeAbstract<K, V> getPrevNode() {
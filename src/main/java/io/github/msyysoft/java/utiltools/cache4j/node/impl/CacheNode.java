@@ -3,6 +3,8 @@ package io.github.msyysoft.java.utiltools.cache4j.node.impl;
 import io.github.msyysoft.java.utiltools.cache4j.node.NodeAbstract;
 
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
 /**
  * 链表缓存节点实现
@@ -11,11 +13,65 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 public class CacheNode<K, V> extends NodeAbstract<K, V>{
     
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<CacheNode> REFRESHING_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(CacheNode.class, "refreshing");
+    
+    @SuppressWarnings("rawtypes")
+    private static final AtomicLongFieldUpdater<CacheNode> VERSION_UPDATER =
+            AtomicLongFieldUpdater.newUpdater(CacheNode.class, "version");
+    
+    /**
+     * 节点已被移出缓存时的版本号
+     */
+    public static final long RETIRED = -1L;
+    
     /**
      * 使用计数
      */
     private AtomicInteger usedCount;
     
+    /**
+     * 权重
+     */
+    private int weight = 1;
+    
+    /**
+     * 写入时间，System.nanoTime()
+     */
+    private volatile long writeTime;
+    
+    /**
+     * 最近访问时间，System.nanoTime()
+     */
+    private volatile long accessTime;
+    
+    /**
+     * 是否正在后台刷新，1表示正在刷新
+     */
+    private volatile int refreshing;
+    
+    /**
+     * 版本号，值被原位替换时递增，节点被移出缓存后固定为RETIRED
+     * 保存了节点副本的上层缓存比较版本号即可判断副本是否仍然有效，无需加锁
+     */
+    private volatile long version;
+    
+    /**
+     * 时间轮中的到期时间
+     */
+    private long timerTime;
+    
+    /**
+     * 时间轮槽位中的前驱节点
+     */
+    private CacheNode<K, V> timerPrevNode;
+    
+    /**
+     * 时间轮槽位中的后继节点
+     */
+    private CacheNode<K, V> timerNextNode;
+    
     public CacheNode(){
         usedCount = new AtomicInteger();
     }
@@ -27,5 +83,97 @@ public class CacheNode<K, V> extends NodeAbstract<K, V>{
     public int usedCountIncrement() {
         return this.usedCount.incrementAndGet();
     }
+
+    /**
+     * 替换值并递增版本号，先写值再改版本号，读方看到版本号未变时读到的值不会比该版本旧
+     */
+    @Override
+    public void setValue(V value) {
+        super.setValue(value);
+        VERSION_UPDATER.getAndUpdate(this, v -> v == RETIRED ? v : v + 1);
+    }
+    
+    /**
+     * 节点被移出缓存，版本号置为RETIRED
+     * 组合型缓存在内部缓存之间转移节点时不调用
+     */
+    public void retire() {
+        this.version = RETIRED;
+    }
+    
+    public long getVersion() {
+        return version;
+    }
+    
+    /**
+     * 尝试标记为正在刷新
+     * @return 标记成功返回true，已有刷新在执行时返回false
+     */
+    public boolean tryStartRefresh() {
+        return REFRESHING_UPDATER.compareAndSet(this, 0, 1);
+    }
+    
+    /**
+     * 刷新结束
+     */
+    public void finishRefresh() {
+        this.refreshing = 0;
+    }
+
+    public int getUsedCount() {
+        return this.usedCount.get();
+    }
+
+    public void setUsedCount(int usedCount) {
+        this.usedCount.set(usedCount);
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    public void setWeight(int weight) {
+        this.weight = weight;
+    }
+
+    public long getWriteTime() {
+        return writeTime;
+    }
+
+    public void setWriteTime(long writeTime) {
+        this.writeTime = writeTime;
+    }
+
+    public long getAccessTime() {
+        return accessTime;
+    }
+
+    public void setAccessTime(long accessTime) {
+        this.accessTime = accessTime;
+    }
+
+    public long getTimerTime() {
+        return timerTime;
+    }
+
+    public void setTimerTime(long timerTime) {
+        this.timerTime = timerTime;
+    }
+
+    public CacheNode<K, V> getTimerPrevNode() {
+        return timerPrevNode;
+    }
+
+    public void setTimerPrevNode(CacheNode<K, V> timerPrevNode) {
+        this.timerPrevNode = timerPrevNode;
+    }
+
+    public CacheNode<K, V> getTimerNextNode() {
+        return timerNextNode;
+    }
+
+    public void setTimerNextNode(CacheNode<K, V> timerNextNode) {
+        this.timerNextNode = timerNextNode;
+    }
     
 }
@@ -0,0 +1,230 @@
+package io.github.msyysoft.java.utiltools.cache4j.offheap;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 堆外内存slab分配器
+ * 内存按slab（直接内存ByteBuffer）申请，每个slab按固定大小切分为chunk；chunk大小从64字节起按2倍递增，
+ * 同一大小的chunk构成一个slab class，各class维护自己的空闲chunk列表，释放的chunk直接复用，不产生碎片整理。
+ * 数据以句柄（long）引用：高32位为class序号，低32位为class内的chunk序号。chunk前4字节记录数据长度。
+ * 非线程安全，调用方负责加锁。
+ * @author 杨元
+ *
+ */
+public class SlabAllocator {
+
+    /**
+     * 最小chunk大小
+     */
+    private static final int MIN_CHUNK_SIZE = 64;
+
+    /**
+     * chunk头部长度，记录数据长度
+     */
+    private static final int HEADER_SIZE = 4;
+
+    /**
+     * 无效句柄
+     */
+    public static final long NULL_HANDLE = -1L;
+
+    /**
+     * 单个slab大小
+     */
+    private int slabSize;
+
+    /**
+     * 堆外内存上限
+     */
+    private long maxMemory;
+
+    /**
+     * 已申请的堆外内存
+     */
+    private long allocatedMemory;
+
+    /**
+     * slab class，按chunk大小升序
+     */
+    private SlabClass[] slabClasses;
+
+    /**
+     * 构造方法
+     * @param slabSize  单个slab大小，同时是可存放的最大数据长度（含4字节头部）
+     * @param maxMemory  堆外内存上限
+     */
+    public SlabAllocator(int slabSize, long maxMemory){
+        if(slabSize < MIN_CHUNK_SIZE){
+            throw new IllegalArgumentException("slabSize must be at least " + MIN_CHUNK_SIZE);
+        }
+        this.slabSize = slabSize;
+        this.maxMemory = maxMemory;
+
+        List<SlabClass> classes = new ArrayList<SlabClass>();
+        for(long chunkSize = MIN_CHUNK_SIZE; chunkSize < slabSize; chunkSize <<= 1){
+            classes.add(new SlabClass((int) chunkSize, slabSize));
+        }
+        classes.add(new SlabClass(slabSize, slabSize));
+        this.slabClasses = classes.toArray(new SlabClass[classes.size()]);
+    }
+
+    /**
+     * 计算数据所属的slab class
+     * @param length  数据长度
+     * @return 数据过大时返回-1
+     */
+    public int slabClassFor(int length){
+        int size = length + HEADER_SIZE;
+        for(int i = 0; i < this.slabClasses.length; i++){
+            if(size <= this.slabClasses[i].chunkSize){
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 分配chunk并写入数据
+     * @param bytes  数据
+     * @return 句柄，没有可用内存或数据过大时返回NULL_HANDLE
+     */
+    public long allocate(byte[] bytes){
+        int classIndex = this.slabClassFor(bytes.length);
+        if(classIndex < 0){
+            return NULL_HANDLE;
+        }
+
+        SlabClass slabClass = this.slabClasses[classIndex];
+        if(slabClass.freeCount == 0){
+            if(this.allocatedMemory + this.slabSize > this.maxMemory){
+                return NULL_HANDLE;
+            }
+            slabClass.grow();
+            this.allocatedMemory += this.slabSize;
+        }
+
+        int chunk = slabClass.freeChunks[--slabClass.freeCount];
+        ByteBuffer slab = slabClass.slabs.get(chunk / slabClass.chunksPerSlab);
+        int offset = (chunk % slabClass.chunksPerSlab) * slabClass.chunkSize;
+        slab.putInt(offset, bytes.length);
+        slab.position(offset + HEADER_SIZE);
+        slab.put(bytes);
+
+        return ((long) classIndex << 32) | (chunk & 0xffffffffL);
+    }
+
+    /**
+     * 读取数据
+     * @param handle  句柄
+     * @return
+     */
+    public byte[] read(long handle){
+        SlabClass slabClass = this.slabClasses[(int) (handle >>> 32)];
+        int chunk = (int) handle;
+        ByteBuffer slab = slabClass.slabs.get(chunk / slabClass.chunksPerSlab);
+        int offset = (chunk % slabClass.chunksPerSlab) * slabClass.chunkSize;
+
+        byte[] bytes = new byte[slab.getInt(offset)];
+        slab.position(offset + HEADER_SIZE);
+        slab.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * 释放chunk，放回所属class的空闲列表
+     * @param handle  句柄
+     */
+    public void free(long handle){
+        this.slabClasses[(int) (handle >>> 32)].release((int) handle);
+    }
+
+    /**
+     * 句柄所属的slab class
+     * @param handle
+     * @return
+     */
+    public int slabClassOf(long handle){
+        return (int) (handle >>> 32);
+    }
+
+    /**
+     * 某个slab class是否还有空闲chunk或可申请新slab
+     * @param classIndex
+     * @return
+     */
+    public boolean hasRoom(int classIndex){
+        return this.slabClasses[classIndex].freeCount > 0 || this.allocatedMemory + this.slabSize <= this.maxMemory;
+    }
+
+    /**
+     * 已申请的堆外内存
+     * @return
+     */
+    public long getAllocatedMemory(){
+        return this.allocatedMemory;
+    }
+
+    /**
+     * 同一chunk大小的slab集合
+     */
+    private static class SlabClass {
+
+        /**
+         * chunk大小
+         */
+        private int chunkSize;
+
+        /**
+         * 每个slab的chunk数量
+         */
+        private int chunksPerSlab;
+
+        /**
+         * 已申请的slab
+         */
+        private List<ByteBuffer> slabs = new ArrayList<ByteBuffer>();
+
+        /**
+         * 空闲chunk序号栈
+         */
+        private int[] freeChunks = new int[0];
+
+        /**
+         * 空闲chunk数量
+         */
+        private int freeCount = 0;
+
+        private SlabClass(int chunkSize, int slabSize){
+            this.chunkSize = chunkSize;
+            this.chunksPerSlab = slabSize / chunkSize;
+        }
+
+        /**
+         * 申请新的slab，并把其所有chunk加入空闲列表
+         */
+        private void grow(){
+            int slabIndex = this.slabs.size();
+            this.slabs.add(ByteBuffer.allocateDirect(this.chunksPerSlab * this.chunkSize));
+
+            int capacity = (slabIndex + 1) * this.chunksPerSlab;
+            if(this.freeChunks.length < capacity){
+                int[] expanded = new int[capacity];
+                System.arraycopy(this.freeChunks, 0, expanded, 0, this.freeCount);
+                this.freeChunks = expanded;
+            }
+            //倒序压栈，使低地址chunk先被使用
+            int base = slabIndex * this.chunksPerSlab;
+            for(int i = this.chunksPerSlab - 1; i >= 0; i--){
+                this.freeChunks[this.freeCount++] = base + i;
+            }
+        }
+
+        private void release(int chunk){
+            this.freeChunks[this.freeCount++] = chunk;
+        }
+
+    }
+
+}
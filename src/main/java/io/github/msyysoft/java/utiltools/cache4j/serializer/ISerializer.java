@@ -0,0 +1,26 @@
+package io.github.msyysoft.java.utiltools.cache4j.serializer;
+
+/**
+ * 序列化接口
+ * 缓存数据存放到堆外内存或磁盘时使用
+ * @author 杨元
+ *
+ * @param <T>
+ */
+public interface ISerializer<T> {
+    
+    /**
+     * 序列化
+     * @param t
+     * @return
+     */
+    public byte[] serialize(T t);
+    
+    /**
+     * 反序列化
+     * @param bytes
+     * @return
+     */
+    public T deserialize(byte[] bytes);
+    
+}
@@ -0,0 +1,40 @@
+package io.github.msyysoft.java.utiltools.cache4j.serializer.impl;
+
+import io.github.msyysoft.java.utiltools.cache4j.serializer.ISerializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * JDK序列化实现，对象需实现java.io.Serializable
+ * @author 杨元
+ *
+ * @param <T>
+ */
+public class JdkSerializer<T> implements ISerializer<T> {
+
+    @Override
+    public byte[] serialize(T t) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+            oos.writeObject(t);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("serialize failed", e);
+        }
+        return bos.toByteArray();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T deserialize(byte[] bytes) {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (T) ois.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalArgumentException("deserialize failed", e);
+        }
+    }
+
+}
@@ -0,0 +1,24 @@
+package io.github.msyysoft.java.utiltools.cache4j.serializer.impl;
+
+import io.github.msyysoft.java.utiltools.cache4j.serializer.ISerializer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 字符串序列化实现，UTF-8编码
+ * @author 杨元
+ *
+ */
+public class StringSerializer implements ISerializer<String> {
+
+    @Override
+    public byte[] serialize(String t) {
+        return t.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String deserialize(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
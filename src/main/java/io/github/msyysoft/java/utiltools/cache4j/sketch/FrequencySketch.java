@@ -0,0 +1,164 @@
+package io.github.msyysoft.java.utiltools.cache4j.sketch;
+
+/**
+ * 访问频率统计草图（Count-Min Sketch）
+ * 每个计数器占4位，最大计到15；一个long容纳16个计数器，每个元素分布在4个计数器上，取最小值作为估计频率。
+ * 累计记录次数达到采样上限时所有计数器减半（老化），使统计结果反映近期的访问分布。
+ * 非线程安全，调用方负责加锁。
+ * @author 杨元
+ *
+ * @param <E>
+ */
+public class FrequencySketch<E> {
+
+    /**
+     * 哈希种子，每个深度一个
+     */
+    private static final long[] SEED = {
+        0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+
+    /**
+     * 每个4位计数器的最高位清零掩码，用于减半
+     */
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    /**
+     * 每个4位计数器的最低位掩码，用于统计减半时的奇数误差
+     */
+    private static final long ONE_MASK = 0x1111111111111111L;
+
+    /**
+     * 计数器表
+     */
+    private long[] table;
+
+    /**
+     * 表下标掩码
+     */
+    private int tableMask;
+
+    /**
+     * 老化采样上限
+     */
+    private int sampleSize;
+
+    /**
+     * 自上次老化以来的记录次数
+     */
+    private int size;
+
+    /**
+     * 构造方法
+     * @param maximumSize  缓存元素上限，决定计数器表的大小
+     */
+    public FrequencySketch(int maximumSize){
+        int maximum = Math.max(maximumSize, 1);
+        int tableSize = Integer.highestOneBit(maximum);
+        if(tableSize < maximum){
+            tableSize = tableSize << 1;
+        }
+        tableSize = Math.max(tableSize, 8);
+
+        this.table = new long[tableSize];
+        this.tableMask = tableSize - 1;
+        this.sampleSize = maximum > Integer.MAX_VALUE / 10 ? Integer.MAX_VALUE : maximum * 10;
+    }
+
+    /**
+     * 估计元素的访问频率
+     * @param e
+     * @return 0~15
+     */
+    public int frequency(E e){
+        int hash = spread(e == null ? 0 : e.hashCode());
+        int start = (hash & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for(int i = 0; i < 4; i++){
+            int index = indexOf(hash, i);
+            int count = (int) ((this.table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * 记录一次访问
+     * @param e
+     */
+    public void increment(E e){
+        int hash = spread(e == null ? 0 : e.hashCode());
+        int start = (hash & 3) << 2;
+
+        boolean added = false;
+        for(int i = 0; i < 4; i++){
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+
+        if(added && (++this.size == this.sampleSize)){
+            reset();
+        }
+    }
+
+    /**
+     * 清空所有计数
+     */
+    public void clear(){
+        for(int i = 0; i < this.table.length; i++){
+            this.table[i] = 0L;
+        }
+        this.size = 0;
+    }
+
+    /**
+     * 计数器递增，已达上限15时不再增加
+     * @param i  表下标
+     * @param j  long中的计数器序号
+     * @return 是否递增成功
+     */
+    private boolean incrementAt(int i, int j){
+        int offset = j << 2;
+        long mask = 0xfL << offset;
+        if((this.table[i] & mask) != mask){
+            this.table[i] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 老化：所有计数器减半
+     */
+    private void reset(){
+        int count = 0;
+        for(int i = 0; i < this.table.length; i++){
+            count += Long.bitCount(this.table[i] & ONE_MASK);
+            this.table[i] = (this.table[i] >>> 1) & RESET_MASK;
+        }
+        this.size = (this.size - (count >>> 2)) >>> 1;
+    }
+
+    /**
+     * 计算某个深度上的表下标
+     * @param hash
+     * @param i  深度
+     * @return
+     */
+    private int indexOf(int hash, int i){
+        long h = (hash + SEED[i]) * SEED[i];
+        h += h >>> 32;
+        return ((int) h) & this.tableMask;
+    }
+
+    /**
+     * 再散列，改善低质量的hashCode
+     * @param x
+     * @return
+     */
+    private int spread(int x){
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+
+}
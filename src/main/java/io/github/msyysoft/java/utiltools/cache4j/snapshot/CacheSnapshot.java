@@ -0,0 +1,230 @@
+package io.github.msyysoft.java.utiltools.cache4j.snapshot;
+
+import io.github.msyysoft.java.utiltools.cache4j.core.ISnapshotable;
+import io.github.msyysoft.java.utiltools.cache4j.node.NodeAbstract;
+import io.github.msyysoft.java.utiltools.cache4j.node.impl.CacheNode;
+import io.github.msyysoft.java.utiltools.cache4j.serializer.ISerializer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * 缓存快照
+ * 按由热到冷的顺序导出缓存中最热的N个元素，启动时按同样顺序依次追加到最冷的位置，恢复淘汰顺序和使用计数，避免冷启动。
+ * 格式：魔数(int) + 版本(byte) + 若干块 + 结束块(count为0)，
+ * 每块为 count(int) + length(int) + crc32(int) + 数据，数据中每个元素依次为
+ * key长度(varint) + key + value长度(varint) + value + 使用计数(varint)。
+ * 导出时只在锁内复制节点引用，序列化在锁外进行；导出和导入时内存中最多只保存一个块。
+ * 过期时间不保存，导入的元素从导入时开始计算过期时间。
+ * @author 杨元
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class CacheSnapshot<K, V> {
+
+    /**
+     * 魔数 "C4JS"
+     */
+    public static final int MAGIC = 0x43344A53;
+
+    /**
+     * 格式版本
+     */
+    public static final byte VERSION = 1;
+
+    /**
+     * 默认每块元素数量
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1024;
+
+    /**
+     * key序列化
+     */
+    private ISerializer<K> keySerializer = null;
+
+    /**
+     * value序列化
+     */
+    private ISerializer<V> valueSerializer = null;
+
+    /**
+     * 每块元素数量
+     */
+    private int chunkSize;
+
+    /**
+     * 使用默认块大小的构造方法
+     * @param keySerializer  key序列化
+     * @param valueSerializer  value序列化
+     */
+    public CacheSnapshot(ISerializer<K> keySerializer, ISerializer<V> valueSerializer){
+        this(keySerializer, valueSerializer, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * 构造方法
+     * @param keySerializer  key序列化
+     * @param valueSerializer  value序列化
+     * @param chunkSize  每块元素数量
+     */
+    public CacheSnapshot(ISerializer<K> keySerializer, ISerializer<V> valueSerializer, int chunkSize){
+        if(chunkSize <= 0){
+            throw new IllegalArgumentException("chunkSize must be greater than 0");
+        }
+        this.keySerializer = keySerializer;
+        this.valueSerializer = valueSerializer;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * 导出最热的limit个元素，不关闭输出流
+     * @param cache  缓存
+     * @param out  输出流
+     * @param limit  最多导出的元素数量
+     * @return 导出的元素数量
+     * @throws IOException
+     */
+    public int export(ISnapshotable<K, V> cache, OutputStream out, int limit) throws IOException {
+        DataOutputStream dos = new DataOutputStream(out);
+        dos.writeInt(MAGIC);
+        dos.writeByte(VERSION);
+
+        List<NodeAbstract<K, V>> nodes = cache.hottestNodes(limit);
+        ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+        int count = 0;
+        int exported = 0;
+
+        for(NodeAbstract<K, V> node : nodes){
+            V value = node.getValue();
+            if(value == null){
+                continue;
+            }
+            byte[] key = this.keySerializer.serialize(node.getKey());
+            byte[] bytes = this.valueSerializer.serialize(value);
+            int usedCount = node instanceof CacheNode ? ((CacheNode<K, V>) node).getUsedCount() : 0;
+
+            writeVarInt(chunk, key.length);
+            chunk.write(key);
+            writeVarInt(chunk, bytes.length);
+            chunk.write(bytes);
+            writeVarInt(chunk, usedCount);
+            exported++;
+
+            if(++count == this.chunkSize){
+                writeChunk(dos, count, chunk);
+                count = 0;
+            }
+        }
+        if(count > 0){
+            writeChunk(dos, count, chunk);
+        }
+        dos.writeInt(0);
+        dos.flush();
+        return exported;
+    }
+
+    /**
+     * 按导出顺序导入，已存在的key和超出容量的元素被忽略，不关闭输入流
+     * @param cache  缓存
+     * @param in  输入流
+     * @return 导入的元素数量
+     * @throws IOException  格式错误或校验失败
+     */
+    public int load(ISnapshotable<K, V> cache, InputStream in) throws IOException {
+        DataInputStream dis = new DataInputStream(in);
+        if(dis.readInt() != MAGIC){
+            throw new IOException("not a cache snapshot");
+        }
+        byte version = dis.readByte();
+        if(version != VERSION){
+            throw new IOException("unsupported snapshot version " + version);
+        }
+
+        int loaded = 0;
+        int count;
+        while((count = dis.readInt()) > 0){
+            int length = dis.readInt();
+            int crc = dis.readInt();
+            if(length < 0){
+                throw new IOException("invalid chunk length " + length);
+            }
+            byte[] chunk = new byte[length];
+            dis.readFully(chunk);
+
+            CRC32 crc32 = new CRC32();
+            crc32.update(chunk, 0, length);
+            if((int) crc32.getValue() != crc){
+                throw new IOException("snapshot chunk checksum mismatch");
+            }
+
+            int[] position = new int[1];
+            for(int i = 0; i < count; i++){
+                K key = this.keySerializer.deserialize(readBytes(chunk, position));
+                V value = this.valueSerializer.deserialize(readBytes(chunk, position));
+                int usedCount = readVarInt(chunk, position);
+                if(cache.appendColdest(key, value, usedCount)){
+                    loaded++;
+                }
+            }
+            if(position[0] != length){
+                throw new IOException("snapshot chunk length mismatch");
+            }
+        }
+        return loaded;
+    }
+
+    private static void writeChunk(DataOutputStream dos, int count, ByteArrayOutputStream chunk) throws IOException {
+        CRC32 crc32 = new CRC32();
+        byte[] bytes = chunk.toByteArray();
+        crc32.update(bytes, 0, bytes.length);
+
+        dos.writeInt(count);
+        dos.writeInt(bytes.length);
+        dos.writeInt((int) crc32.getValue());
+        dos.write(bytes);
+        chunk.reset();
+    }
+
+    private static void writeVarInt(OutputStream out, int value) throws IOException {
+        while((value & ~0x7F) != 0){
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarInt(byte[] chunk, int[] position) throws IOException {
+        int value = 0;
+        for(int shift = 0; shift < 32; shift += 7){
+            if(position[0] >= chunk.length){
+                throw new EOFException("truncated snapshot chunk");
+            }
+            byte b = chunk[position[0]++];
+            value |= (b & 0x7F) << shift;
+            if((b & 0x80) == 0){
+                return value;
+            }
+        }
+        throw new IOException("malformed varint");
+    }
+
+    private static byte[] readBytes(byte[] chunk, int[] position) throws IOException {
+        int length = readVarInt(chunk, position);
+        if(length < 0 || length > chunk.length - position[0]){
+            throw new EOFException("truncated snapshot chunk");
+        }
+        byte[] bytes = new byte[length];
+        System.arraycopy(chunk, position[0], bytes, 0, length);
+        position[0] += length;
+        return bytes;
+    }
+
+}
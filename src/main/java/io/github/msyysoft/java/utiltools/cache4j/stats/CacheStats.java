@@ -0,0 +1,190 @@
+package io.github.msyysoft.java.utiltools.cache4j.stats;
+
+import io.github.msyysoft.java.utiltools.cache4j.core.RemovalCause;
+
+import java.util.Arrays;
+
+/**
+ * 缓存统计快照，不可变
+ * 由统计计数器在某一时刻生成，各项计数之间不保证严格一致。
+ * @author 杨元
+ *
+ */
+public final class CacheStats {
+
+    private static final CacheStats EMPTY = new CacheStats(0L, 0L, 0L, 0L, 0L, new long[RemovalCause.values().length], 0L);
+
+    /**
+     * 命中次数
+     */
+    private final long hitCount;
+
+    /**
+     * 未命中次数
+     */
+    private final long missCount;
+
+    /**
+     * 加载成功次数
+     */
+    private final long loadSuccessCount;
+
+    /**
+     * 加载失败次数
+     */
+    private final long loadFailureCount;
+
+    /**
+     * 加载总耗时，纳秒
+     */
+    private final long totalLoadTime;
+
+    /**
+     * 按移除原因统计的淘汰次数，下标为RemovalCause.ordinal()
+     */
+    private final long[] evictionCounts;
+
+    /**
+     * 被淘汰元素的权重总和
+     */
+    private final long evictionWeight;
+
+    public CacheStats(long hitCount, long missCount, long loadSuccessCount, long loadFailureCount,
+            long totalLoadTime, long[] evictionCounts, long evictionWeight){
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.loadSuccessCount = loadSuccessCount;
+        this.loadFailureCount = loadFailureCount;
+        this.totalLoadTime = totalLoadTime;
+        this.evictionCounts = Arrays.copyOf(evictionCounts, RemovalCause.values().length);
+        this.evictionWeight = evictionWeight;
+    }
+
+    /**
+     * 空统计
+     * @return
+     */
+    public static CacheStats empty(){
+        return EMPTY;
+    }
+
+    /**
+     * 请求次数
+     * @return
+     */
+    public long requestCount(){
+        return this.hitCount + this.missCount;
+    }
+
+    /**
+     * 命中率，没有请求时返回0
+     * @return
+     */
+    public double hitRate(){
+        long requestCount = this.requestCount();
+        return requestCount == 0 ? 0.0d : (double) this.hitCount / requestCount;
+    }
+
+    /**
+     * 未命中率，没有请求时返回0
+     * @return
+     */
+    public double missRate(){
+        long requestCount = this.requestCount();
+        return requestCount == 0 ? 0.0d : (double) this.missCount / requestCount;
+    }
+
+    /**
+     * 加载次数
+     * @return
+     */
+    public long loadCount(){
+        return this.loadSuccessCount + this.loadFailureCount;
+    }
+
+    /**
+     * 平均加载耗时，纳秒
+     * @return
+     */
+    public double averageLoadPenalty(){
+        long loadCount = this.loadCount();
+        return loadCount == 0 ? 0.0d : (double) this.totalLoadTime / loadCount;
+    }
+
+    /**
+     * 淘汰总次数
+     * @return
+     */
+    public long evictionCount(){
+        long count = 0L;
+        for(long evictionCount : this.evictionCounts){
+            count += evictionCount;
+        }
+        return count;
+    }
+
+    /**
+     * 指定原因的淘汰次数
+     * @param cause
+     * @return
+     */
+    public long evictionCount(RemovalCause cause){
+        return this.evictionCounts[cause.ordinal()];
+    }
+
+    /**
+     * 与另一份统计相加，组合型缓存汇总内部缓存的统计时使用
+     * @param other
+     * @return
+     */
+    public CacheStats plus(CacheStats other){
+        long[] counts = new long[this.evictionCounts.length];
+        for(int i = 0; i < counts.length; i++){
+            counts[i] = this.evictionCounts[i] + other.evictionCounts[i];
+        }
+        return new CacheStats(
+                this.hitCount + other.hitCount,
+                this.missCount + other.missCount,
+                this.loadSuccessCount + other.loadSuccessCount,
+                this.loadFailureCount + other.loadFailureCount,
+                this.totalLoadTime + other.totalLoadTime,
+                counts,
+                this.evictionWeight + other.evictionWeight);
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getLoadSuccessCount() {
+        return loadSuccessCount;
+    }
+
+    public long getLoadFailureCount() {
+        return loadFailureCount;
+    }
+
+    public long getTotalLoadTime() {
+        return totalLoadTime;
+    }
+
+    public long getEvictionWeight() {
+        return evictionWeight;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{hitCount=" + hitCount
+                + ", missCount=" + missCount
+                + ", loadSuccessCount=" + loadSuccessCount
+                + ", loadFailureCount=" + loadFailureCount
+                + ", totalLoadTime=" + totalLoadTime
+                + ", evictionCount=" + this.evictionCount()
+                + ", evictionWeight=" + evictionWeight + "}";
+    }
+
+}
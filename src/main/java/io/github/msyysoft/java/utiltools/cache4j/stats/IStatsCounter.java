@@ -0,0 +1,54 @@
+package io.github.msyysoft.java.utiltools.cache4j.stats;
+
+import io.github.msyysoft.java.utiltools.cache4j.core.RemovalCause;
+
+/**
+ * 缓存统计计数器接口
+ * @author 杨元
+ *
+ */
+public interface IStatsCounter {
+
+    /**
+     * 记录命中
+     * @param count  次数
+     */
+    public void recordHits(int count);
+
+    /**
+     * 记录未命中
+     * @param count  次数
+     */
+    public void recordMisses(int count);
+
+    /**
+     * 记录一次加载成功
+     * @param loadTime  耗时，纳秒
+     */
+    public void recordLoadSuccess(long loadTime);
+
+    /**
+     * 记录一次加载失败
+     * @param loadTime  耗时，纳秒
+     */
+    public void recordLoadFailure(long loadTime);
+
+    /**
+     * 记录一次淘汰
+     * @param cause  移除原因
+     * @param weight  被淘汰元素的权重
+     */
+    public void recordEviction(RemovalCause cause, int weight);
+
+    /**
+     * 生成统计快照
+     * @return
+     */
+    public CacheStats snapshot();
+
+    /**
+     * 清零
+     */
+    public void reset();
+
+}
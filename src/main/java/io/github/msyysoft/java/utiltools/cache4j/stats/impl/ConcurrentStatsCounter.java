@@ -0,0 +1,98 @@
+package io.github.msyysoft.java.utiltools.cache4j.stats.impl;
+
+import io.github.msyysoft.java.utiltools.cache4j.core.RemovalCause;
+import io.github.msyysoft.java.utiltools.cache4j.stats.CacheStats;
+import io.github.msyysoft.java.utiltools.cache4j.stats.IStatsCounter;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 基于LongAdder的统计计数器
+ * 高并发下各线程累加到不同的分段，读取时再求和，计数不会成为竞争热点，也不会溢出。
+ * @author 杨元
+ *
+ */
+public class ConcurrentStatsCounter implements IStatsCounter {
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder loadSuccessCount = new LongAdder();
+
+    private final LongAdder loadFailureCount = new LongAdder();
+
+    private final LongAdder totalLoadTime = new LongAdder();
+
+    private final LongAdder evictionWeight = new LongAdder();
+
+    /**
+     * 按移除原因统计的淘汰次数
+     */
+    private final LongAdder[] evictionCounts;
+
+    public ConcurrentStatsCounter(){
+        this.evictionCounts = new LongAdder[RemovalCause.values().length];
+        for(int i = 0; i < this.evictionCounts.length; i++){
+            this.evictionCounts[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public void recordHits(int count) {
+        this.hitCount.add(count);
+    }
+
+    @Override
+    public void recordMisses(int count) {
+        this.missCount.add(count);
+    }
+
+    @Override
+    public void recordLoadSuccess(long loadTime) {
+        this.loadSuccessCount.increment();
+        this.totalLoadTime.add(loadTime);
+    }
+
+    @Override
+    public void recordLoadFailure(long loadTime) {
+        this.loadFailureCount.increment();
+        this.totalLoadTime.add(loadTime);
+    }
+
+    @Override
+    public void recordEviction(RemovalCause cause, int weight) {
+        this.evictionCounts[cause.ordinal()].increment();
+        this.evictionWeight.add(weight);
+    }
+
+    @Override
+    public CacheStats snapshot() {
+        long[] counts = new long[this.evictionCounts.length];
+        for(int i = 0; i < counts.length; i++){
+            counts[i] = this.evictionCounts[i].sum();
+        }
+        return new CacheStats(
+                this.hitCount.sum(),
+                this.missCount.sum(),
+                this.loadSuccessCount.sum(),
+                this.loadFailureCount.sum(),
+                this.totalLoadTime.sum(),
+                counts,
+                this.evictionWeight.sum());
+    }
+
+    @Override
+    public void reset() {
+        this.hitCount.reset();
+        this.missCount.reset();
+        this.loadSuccessCount.reset();
+        this.loadFailureCount.reset();
+        this.totalLoadTime.reset();
+        this.evictionWeight.reset();
+        for(LongAdder evictionCount : this.evictionCounts){
+            evictionCount.reset();
+        }
+    }
+
+}
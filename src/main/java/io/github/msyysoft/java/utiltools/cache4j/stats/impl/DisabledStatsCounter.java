@@ -0,0 +1,55 @@
+package io.github.msyysoft.java.utiltools.cache4j.stats.impl;
+
+import io.github.msyysoft.java.utiltools.cache4j.core.RemovalCause;
+import io.github.msyysoft.java.utiltools.cache4j.stats.CacheStats;
+import io.github.msyysoft.java.utiltools.cache4j.stats.IStatsCounter;
+
+/**
+ * 不记录任何统计的计数器，关闭统计时使用
+ * @author 杨元
+ *
+ */
+public final class DisabledStatsCounter implements IStatsCounter {
+
+    public static final DisabledStatsCounter INSTANCE = new DisabledStatsCounter();
+
+    private DisabledStatsCounter(){
+
+    }
+
+    @Override
+    public void recordHits(int count) {
+
+    }
+
+    @Override
+    public void recordMisses(int count) {
+
+    }
+
+    @Override
+    public void recordLoadSuccess(long loadTime) {
+
+    }
+
+    @Override
+    public void recordLoadFailure(long loadTime) {
+
+    }
+
+    @Override
+    public void recordEviction(RemovalCause cause, int weight) {
+
+    }
+
+    @Override
+    public CacheStats snapshot() {
+        return CacheStats.empty();
+    }
+
+    @Override
+    public void reset() {
+
+    }
+
+}
@@ -0,0 +1,85 @@
+package io.github.msyysoft.java.utiltools.cache4j.test;
+
+import io.github.msyysoft.java.utiltools.cache4j.core.impl.CacheConfig;
+import io.github.msyysoft.java.utiltools.cache4j.core.impl.LruCache;
+import io.github.msyysoft.java.utiltools.cache4j.core.impl.TwoQueuesCache;
+import io.github.msyysoft.java.utiltools.cache4j.factory.INodeFactory;
+import io.github.msyysoft.java.utiltools.cache4j.factory.impl.CacheNodeFactory;
+import io.github.msyysoft.java.utiltools.cache4j.serializer.impl.StringSerializer;
+import io.github.msyysoft.java.utiltools.cache4j.snapshot.CacheSnapshot;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+public class SnapshotTest {
+    
+    public static void main(String[] args) throws Exception{
+        
+        INodeFactory<String, String> nodeFactory = new CacheNodeFactory<String, String>();
+        CacheSnapshot<String, String> snapshot = new CacheSnapshot<String, String>(new StringSerializer(), new StringSerializer(), 2);
+        
+        //lru：导出最热的3个，导入后淘汰顺序不变
+        LruCache<String, String> lru = new LruCache<String, String>(CacheConfig.custom().setMaxElement(5), nodeFactory);
+        lru.put("a", "av");
+        lru.put("b", "bv");
+        lru.put("c", "cv");
+        lru.put("d", "dv");
+        lru.get("a");
+        
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if(snapshot.export(lru, out, 3) != 3){
+            throw new Exception("导出");
+        }
+        
+        LruCache<String, String> warm = new LruCache<String, String>(CacheConfig.custom().setMaxElement(3), nodeFactory);
+        if(snapshot.load(warm, new ByteArrayInputStream(out.toByteArray())) != 3){
+            throw new Exception("导入");
+        }
+        
+        if(!"av".equals(warm.get("a")) || warm.get("b") != null){
+            throw new Exception("取值");
+        }
+        
+        warm.put("e", "ev");
+        
+        if(warm.get("c") != null || warm.get("d") == null || warm.get("a") == null){
+            throw new Exception("队列淘汰");
+        }
+        warm.checkIntegrity();
+        
+        //two queues：使用计数达到阈值的元素回到lru
+        TwoQueuesCache<String, String> tqc = new TwoQueuesCache<String, String>(CacheConfig.custom().setMaxElement(6), nodeFactory);
+        tqc.put("a", "av");
+        tqc.put("b", "bv");
+        tqc.put("c", "cv");
+        tqc.get("b");
+        tqc.get("b");
+        
+        out = new ByteArrayOutputStream();
+        snapshot.export(tqc, out, 10);
+        
+        TwoQueuesCache<String, String> warmTqc = new TwoQueuesCache<String, String>(CacheConfig.custom().setMaxElement(6), nodeFactory);
+        byte[] bytes = out.toByteArray();
+        if(snapshot.load(warmTqc, new ByteArrayInputStream(bytes)) != 3){
+            throw new Exception("导入");
+        }
+        
+        if(warmTqc.fifoSize() != 2 || warmTqc.size() != 3){
+            throw new Exception("计数");
+        }
+        warmTqc.checkIntegrity();
+        
+        //损坏的数据块
+        bytes[bytes.length - 5] ^= 1;
+        try{
+            snapshot.load(new LruCache<String, String>(CacheConfig.custom().setMaxElement(6), nodeFactory), new ByteArrayInputStream(bytes));
+            throw new Exception("校验");
+        }catch(IOException e){
+            //预期
+        }
+        
+        System.out.println("all test passed");
+    }
+    
+}
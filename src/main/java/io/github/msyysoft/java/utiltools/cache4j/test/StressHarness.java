@@ -0,0 +1,550 @@
+package io.github.msyysoft.java.utiltools.cache4j.test;
+
+import io.github.msyysoft.java.utiltools.cache4j.core.ICache;
+import io.github.msyysoft.java.utiltools.cache4j.node.NodeAbstract;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 缓存并发压力测试工具
+ * 多个线程按比例随机执行get/put/remove，分多轮运行，每轮结束所有线程静止后校验不变量。
+ * 每个key只由一个线程写入，版本号递增，值编码为 版本号*keySpace+key，由此可以检查：
+ * 写入线程读到自己的旧值或已删除的值、其他线程读到的版本号回退、值与key不对应、
+ * 静止时的值不是最后一次写入的值、size()与实际存在的key数量不一致、超过容量上限。
+ * 每种操作的耗时按采样统计：采样时记录线程阻塞和等待次数，未发生竞争的操作耗时近似为持锁时间，
+ * 发生竞争的操作多出的耗时近似为等锁时间。
+ * @author 杨元
+ *
+ */
+public class StressHarness {
+
+    private static final int GET = 0;
+    private static final int PUT = 1;
+    private static final int REMOVE = 2;
+    private static final String[] OPERATIONS = {"get", "put", "remove"};
+
+    /**
+     * 每种操作每隔多少次采样一次竞争情况，必须是2的幂
+     */
+    private static final int SAMPLE_INTERVAL = 32;
+
+    /**
+     * 最多保留的违规描述条数
+     */
+    private static final int MAX_VIOLATIONS = 20;
+
+    private int threads = 8;
+
+    private int rounds = 10;
+
+    private long roundMillis = 50L;
+
+    private int keySpace = 256;
+
+    private int maxElement = 0;
+
+    private int readPercent = 70;
+
+    private int removePercent = 5;
+
+    private long seed = System.nanoTime();
+
+    private ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+    public static StressHarness custom(){
+        return new StressHarness();
+    }
+
+    /**
+     * 运行压力测试
+     * @param name  报告中显示的名称
+     * @param cache  被测缓存，必须为空
+     * @param integrityCheck  静止时执行的内部结构校验，可以为null，不一致时应抛出异常
+     * @return
+     */
+    public Report run(String name, ICache<Integer, Long> cache, Runnable integrityCheck) {
+        Report report = new Report(name, this.threads);
+        RunState state = new RunState(this.keySpace, this.threads + 1);
+
+        Worker[] workers = new Worker[this.threads];
+        List<Thread> threadList = new ArrayList<Thread>();
+        for(int i = 0; i < this.threads; i++){
+            workers[i] = new Worker(i, cache, state, report, new Random(this.seed + i));
+            Thread thread = new Thread(workers[i], "cache-stress-" + i);
+            thread.setDaemon(true);
+            threadList.add(thread);
+            thread.start();
+        }
+
+        long timeout = this.roundMillis + TimeUnit.SECONDS.toMillis(10);
+        try {
+            for(int round = 0; round < this.rounds; round++){
+                state.barrier.await(timeout, TimeUnit.MILLISECONDS);
+                state.barrier.await(timeout, TimeUnit.MILLISECONDS);
+                this.validate(cache, integrityCheck, state, report, round);
+            }
+            //放行工作线程退出
+            state.stopped = true;
+            state.barrier.await(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            report.violation("round did not finish within " + timeout + "ms, possible deadlock or livelock");
+            state.barrier.reset();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            report.violation("interrupted");
+        } catch (BrokenBarrierException e) {
+            report.violation("barrier broken");
+        }
+
+        for(Worker worker : workers){
+            for(int op = 0; op < OPERATIONS.length; op++){
+                report.stats[op].merge(worker.stats[op]);
+            }
+        }
+        return report;
+    }
+
+    /**
+     * 所有线程静止时校验不变量
+     */
+    private void validate(ICache<Integer, Long> cache, Runnable integrityCheck, RunState state, Report report, int round) {
+        int present = 0;
+        for(int key = 0; key < this.keySpace; key++){
+            NodeAbstract<Integer, Long> node;
+            try {
+                node = cache.getNode(key);
+            } catch (RuntimeException e) {
+                report.violation("round " + round + " getNode(" + key + ") threw " + e);
+                continue;
+            }
+            if(node == null){
+                continue;
+            }
+            present++;
+
+            Long value = node.getValue();
+            if(!Integer.valueOf(key).equals(node.getKey()) || value == null || value % this.keySpace != key){
+                report.violation("round " + round + " key " + key + " maps to node " + node.getKey() + "=" + value);
+            }else if(state.removed[key]){
+                report.violation("round " + round + " key " + key + " still present after remove, version " + value / this.keySpace);
+            }else if(value / this.keySpace != state.lastWritten[key]){
+                report.violation("round " + round + " key " + key + " holds version " + value / this.keySpace
+                        + ", last written " + state.lastWritten[key]);
+            }
+        }
+
+        int size = cache.size();
+        if(size != present){
+            report.violation("round " + round + " size() " + size + " != present keys " + present);
+        }
+        if(this.maxElement > 0 && size > this.maxElement){
+            report.violation("round " + round + " size() " + size + " exceeds maxElement " + this.maxElement);
+        }
+
+        if(integrityCheck != null){
+            try {
+                integrityCheck.run();
+            } catch (RuntimeException e) {
+                report.violation("round " + round + " integrity check failed: " + e.getMessage());
+            }
+        }
+        report.rounds++;
+    }
+
+    /**
+     * 一次运行中所有线程共享的状态
+     * lastWritten和removed只由key的写入线程修改，校验线程通过barrier看到最新值
+     */
+    private static class RunState {
+
+        private CyclicBarrier barrier;
+
+        private long[] lastWritten;
+
+        private boolean[] removed;
+
+        private volatile boolean stopped;
+
+        private RunState(int keySpace, int parties) {
+            this.barrier = new CyclicBarrier(parties);
+            this.lastWritten = new long[keySpace];
+            this.removed = new boolean[keySpace];
+        }
+
+    }
+
+    private class Worker implements Runnable {
+
+        private int index;
+
+        private ICache<Integer, Long> cache;
+
+        private RunState state;
+
+        private Report report;
+
+        private Random random;
+
+        /**
+         * 本线程读到过的每个key的最大版本号
+         */
+        private long[] seen;
+
+        private OpStats[] stats = new OpStats[OPERATIONS.length];
+
+        private Worker(int index, ICache<Integer, Long> cache, RunState state, Report report, Random random) {
+            this.index = index;
+            this.cache = cache;
+            this.state = state;
+            this.report = report;
+            this.random = random;
+            this.seen = new long[keySpace];
+            for(int op = 0; op < OPERATIONS.length; op++){
+                this.stats[op] = new OpStats();
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while(true){
+                    this.state.barrier.await();
+                    if(this.state.stopped){
+                        return;
+                    }
+                    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(roundMillis);
+                    while(System.nanoTime() - deadline < 0){
+                        this.step();
+                    }
+                    this.state.barrier.await();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (BrokenBarrierException e) {
+                //校验线程超时，放弃本次运行
+            }
+        }
+
+        private void step() {
+            int dice = this.random.nextInt(100);
+            int op = dice < readPercent ? GET : dice < readPercent + removePercent ? REMOVE : PUT;
+
+            int key = this.random.nextInt(keySpace);
+            boolean owner = key % threads == this.index;
+            if(op != GET && !owner){
+                //只写入属于本线程的key
+                key = key - key % threads + this.index;
+                if(key >= keySpace){
+                    key = this.index;
+                }
+                owner = true;
+            }
+
+            OpStats opStats = this.stats[op];
+            boolean sample = (opStats.count & (SAMPLE_INTERVAL - 1)) == 0;
+            long contentionBefore = sample ? this.contention() : 0L;
+
+            Long value = null;
+            long start = System.nanoTime();
+            try {
+                if(op == GET){
+                    value = this.cache.get(key);
+                }else if(op == PUT){
+                    long version = this.state.lastWritten[key] + 1;
+                    this.cache.put(key, version * keySpace + key);
+                    this.state.lastWritten[key] = version;
+                    this.state.removed[key] = false;
+                }else{
+                    this.cache.remove(key);
+                    this.state.removed[key] = true;
+                }
+            } catch (RuntimeException e) {
+                this.report.violation(OPERATIONS[op] + "(" + key + ") threw " + e);
+            }
+            long nanos = System.nanoTime() - start;
+
+            if(sample){
+                opStats.sample(nanos, this.contention() != contentionBefore);
+            }
+            opStats.record(nanos);
+
+            if(op == GET && value != null){
+                this.checkRead(key, value, owner);
+            }
+        }
+
+        private void checkRead(int key, long value, boolean owner) {
+            long version = value / keySpace;
+            if(value % keySpace != key){
+                this.report.violation("get(" + key + ") returned value of key " + value % keySpace);
+            }else if(owner && this.state.removed[key]){
+                this.report.violation("get(" + key + ") returned version " + version + " after its writer removed it");
+            }else if(owner && version != this.state.lastWritten[key]){
+                this.report.violation("get(" + key + ") returned version " + version + " to its writer, last written "
+                        + this.state.lastWritten[key]);
+            }else if(version < this.seen[key]){
+                this.report.violation("get(" + key + ") went back from version " + this.seen[key] + " to " + version);
+            }
+            this.seen[key] = Math.max(this.seen[key], version);
+        }
+
+        /**
+         * 当前线程累计进入锁阻塞和等待的次数
+         */
+        private long contention() {
+            ThreadInfo info = threadMXBean.getThreadInfo(Thread.currentThread().getId());
+            return info == null ? 0L : info.getBlockedCount() + info.getWaitedCount();
+        }
+
+    }
+
+    /**
+     * 单种操作的耗时统计
+     */
+    public static class OpStats {
+
+        private long count;
+
+        private long totalNanos;
+
+        private long maxNanos;
+
+        private long uncontendedCount;
+
+        private long uncontendedNanos;
+
+        private long contendedCount;
+
+        private long contendedNanos;
+
+        private void record(long nanos) {
+            this.count++;
+            this.totalNanos += nanos;
+            this.maxNanos = Math.max(this.maxNanos, nanos);
+        }
+
+        private void sample(long nanos, boolean contended) {
+            if(contended){
+                this.contendedCount++;
+                this.contendedNanos += nanos;
+            }else{
+                this.uncontendedCount++;
+                this.uncontendedNanos += nanos;
+            }
+        }
+
+        private void merge(OpStats other) {
+            this.count += other.count;
+            this.totalNanos += other.totalNanos;
+            this.maxNanos = Math.max(this.maxNanos, other.maxNanos);
+            this.uncontendedCount += other.uncontendedCount;
+            this.uncontendedNanos += other.uncontendedNanos;
+            this.contendedCount += other.contendedCount;
+            this.contendedNanos += other.contendedNanos;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getAverageNanos() {
+            return this.count == 0 ? 0d : (double) this.totalNanos / this.count;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        /**
+         * 采样中发生锁竞争的比例
+         */
+        public double getContendedRatio() {
+            long samples = this.contendedCount + this.uncontendedCount;
+            return samples == 0 ? 0d : (double) this.contendedCount / samples;
+        }
+
+        /**
+         * 近似持锁时间：未发生竞争的采样平均耗时
+         */
+        public double getHoldNanos() {
+            return this.uncontendedCount == 0 ? 0d : (double) this.uncontendedNanos / this.uncontendedCount;
+        }
+
+        /**
+         * 近似等锁时间：发生竞争的采样比未竞争的采样多出的平均耗时
+         */
+        public double getWaitNanos() {
+            if(this.contendedCount == 0){
+                return 0d;
+            }
+            return Math.max(0d, (double) this.contendedNanos / this.contendedCount - this.getHoldNanos());
+        }
+
+    }
+
+    /**
+     * 运行结果
+     */
+    public static class Report {
+
+        private String name;
+
+        private int threads;
+
+        private int rounds;
+
+        private int violationCount;
+
+        private List<String> violations = new ArrayList<String>();
+
+        private OpStats[] stats = new OpStats[OPERATIONS.length];
+
+        private Report(String name, int threads) {
+            this.name = name;
+            this.threads = threads;
+            for(int op = 0; op < OPERATIONS.length; op++){
+                this.stats[op] = new OpStats();
+            }
+        }
+
+        private synchronized void violation(String message) {
+            this.violationCount++;
+            if(this.violations.size() < MAX_VIOLATIONS){
+                this.violations.add(message);
+            }
+        }
+
+        public boolean passed() {
+            return this.violationCount == 0;
+        }
+
+        public synchronized int getViolationCount() {
+            return violationCount;
+        }
+
+        public synchronized List<String> getViolations() {
+            return Collections.unmodifiableList(new ArrayList<String>(this.violations));
+        }
+
+        /**
+         * 按操作名称获取统计：get、put、remove
+         */
+        public OpStats getStats(String operation) {
+            for(int op = 0; op < OPERATIONS.length; op++){
+                if(OPERATIONS[op].equals(operation)){
+                    return this.stats[op];
+                }
+            }
+            throw new IllegalArgumentException("unknown operation: " + operation);
+        }
+
+        @Override
+        public synchronized String toString() {
+            StringBuilder builder = new StringBuilder();
+            builder.append(String.format("[%s] threads=%d rounds=%d violations=%d%n", this.name, this.threads, this.rounds, this.violationCount));
+            builder.append(String.format("  %-8s %12s %10s %12s %11s %10s %10s%n", "op", "count", "avg(ns)", "max(ns)", "contended", "hold(ns)", "wait(ns)"));
+            for(int op = 0; op < OPERATIONS.length; op++){
+                OpStats s = this.stats[op];
+                builder.append(String.format("  %-8s %12d %10.0f %12d %10.2f%% %10.0f %10.0f%n", OPERATIONS[op], s.getCount(),
+                        s.getAverageNanos(), s.getMaxNanos(), s.getContendedRatio() * 100, s.getHoldNanos(), s.getWaitNanos()));
+            }
+            for(String violation : this.violations){
+                builder.append("  ! ").append(violation).append(String.format("%n"));
+            }
+            if(this.violationCount > this.violations.size()){
+                builder.append("  ! ... ").append(this.violationCount - this.violations.size()).append(" more").append(String.format("%n"));
+            }
+            return builder.toString();
+        }
+
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public StressHarness setThreads(int threads) {
+        this.threads = threads;
+        return this;
+    }
+
+    public int getRounds() {
+        return rounds;
+    }
+
+    public StressHarness setRounds(int rounds) {
+        this.rounds = rounds;
+        return this;
+    }
+
+    public long getRoundMillis() {
+        return roundMillis;
+    }
+
+    public StressHarness setRoundMillis(long roundMillis) {
+        this.roundMillis = roundMillis;
+        return this;
+    }
+
+    public int getKeySpace() {
+        return keySpace;
+    }
+
+    /**
+     * key取值范围[0, keySpace)，不能小于线程数
+     */
+    public StressHarness setKeySpace(int keySpace) {
+        this.keySpace = keySpace;
+        return this;
+    }
+
+    public int getMaxElement() {
+        return maxElement;
+    }
+
+    /**
+     * 被测缓存的元素上限，为0时不校验
+     */
+    public StressHarness setMaxElement(int maxElement) {
+        this.maxElement = maxElement;
+        return this;
+    }
+
+    public int getReadPercent() {
+        return readPercent;
+    }
+
+    public StressHarness setReadPercent(int readPercent) {
+        this.readPercent = readPercent;
+        return this;
+    }
+
+    public int getRemovePercent() {
+        return removePercent;
+    }
+
+    public StressHarness setRemovePercent(int removePercent) {
+        this.removePercent = removePercent;
+        return this;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public StressHarness setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+}
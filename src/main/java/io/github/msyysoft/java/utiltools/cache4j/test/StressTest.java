@@ -0,0 +1,113 @@
+package io.github.msyysoft.java.utiltools.cache4j.test;
+
+import io.github.msyysoft.java.utiltools.cache4j.core.ICache;
+import io.github.msyysoft.java.utiltools.cache4j.core.impl.ArcCache;
+import io.github.msyysoft.java.utiltools.cache4j.core.impl.CacheConfig;
+import io.github.msyysoft.java.utiltools.cache4j.core.impl.FifoCache;
+import io.github.msyysoft.java.utiltools.cache4j.core.impl.HierarchicalCache;
+import io.github.msyysoft.java.utiltools.cache4j.core.impl.LruCache;
+import io.github.msyysoft.java.utiltools.cache4j.core.impl.SegmentLruCache;
+import io.github.msyysoft.java.utiltools.cache4j.core.impl.TinyLfuCache;
+import io.github.msyysoft.java.utiltools.cache4j.core.impl.TwoQueuesCache;
+import io.github.msyysoft.java.utiltools.cache4j.factory.INodeFactory;
+import io.github.msyysoft.java.utiltools.cache4j.factory.impl.CacheNodeFactory;
+
+public class StressTest {
+
+    private static final int MAX_ELEMENT = 64;
+
+    private static INodeFactory<Integer, Long> nodeFactory = new CacheNodeFactory<Integer, Long>();
+
+    private static StressHarness harness = StressHarness.custom()
+            .setThreads(16)
+            .setRounds(10)
+            .setRoundMillis(50)
+            .setKeySpace(MAX_ELEMENT * 2)
+            .setMaxElement(MAX_ELEMENT);
+
+    private static boolean passed = true;
+
+    private static final int COUNTER_KEYS = 16;
+
+    private static final int COUNTER_THREADS = 8;
+
+    private static final int COUNTER_INCREMENTS = 2000;
+
+    public static void main(String[] args) throws Exception {
+
+        FifoCache<Integer, Long> fifo = new FifoCache<Integer, Long>(config(), nodeFactory);
+        run("FifoCache", fifo, fifo::checkIntegrity);
+
+        LruCache<Integer, Long> lru = new LruCache<Integer, Long>(config(), nodeFactory);
+        run("LruCache", lru, lru::checkIntegrity);
+
+        LruCache<Integer, Long> bufferedLru = new LruCache<Integer, Long>(config().setReadBuffered(true), nodeFactory);
+        run("LruCache(readBuffered)", bufferedLru, bufferedLru::checkIntegrity);
+
+        TwoQueuesCache<Integer, Long> tqc = new TwoQueuesCache<Integer, Long>(config(), nodeFactory);
+        run("TwoQueuesCache", tqc, tqc::checkIntegrity);
+
+        SegmentLruCache<Integer, Long> segmentLru = new SegmentLruCache<Integer, Long>(config().setConcurrencyLevel(8), nodeFactory);
+        run("SegmentLruCache", segmentLru, segmentLru::checkIntegrity);
+
+        TwoQueuesCache<Integer, Long> l2 = new TwoQueuesCache<Integer, Long>(config(), nodeFactory);
+        run("HierarchicalCache(TwoQueuesCache)", new HierarchicalCache<Integer, Long>(l2, 8, 16), l2::checkIntegrity);
+
+        run("ArcCache", new ArcCache<Integer, Long>(config(), nodeFactory), null);
+        run("TinyLfuCache", new TinyLfuCache<Integer, Long>(config(), nodeFactory), null);
+
+        if(!passed){
+            throw new Exception("并发校验失败");
+        }
+
+        System.out.println("all test passed");
+    }
+
+    private static CacheConfig config() {
+        return CacheConfig.custom().setMaxElement(MAX_ELEMENT);
+    }
+
+    private static void run(String name, ICache<Integer, Long> cache, Runnable integrityCheck) throws InterruptedException {
+        StressHarness.Report report = harness.run(name, cache, integrityCheck);
+        System.out.print(report);
+        passed &= report.passed();
+
+        cache.clear();
+        checkCompute(name, cache);
+    }
+
+    /**
+     * 多个线程用compute和computeIfAbsent对同一组计数器自增，key数量小于容量，不发生淘汰，
+     * 结束后每个计数器必须等于自增总次数
+     */
+    private static void checkCompute(String name, final ICache<Integer, Long> cache) throws InterruptedException {
+        Thread[] threads = new Thread[COUNTER_THREADS];
+        for(int i = 0; i < COUNTER_THREADS; i++){
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for(int n = 0; n < COUNTER_INCREMENTS; n++){
+                        int key = n % COUNTER_KEYS;
+                        cache.computeIfAbsent(key, k -> 0L);
+                        cache.compute(key, (k, v) -> v == null ? 1L : v + 1);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for(Thread thread : threads){
+            thread.join();
+        }
+
+        long expected = (long) COUNTER_THREADS * COUNTER_INCREMENTS / COUNTER_KEYS;
+        for(int key = 0; key < COUNTER_KEYS; key++){
+            Long value = cache.get(key);
+            if(value == null || value != expected){
+                System.out.println("[" + name + "] compute lost updates, key " + key + " = " + value + ", expected " + expected);
+                passed = false;
+                return;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,255 @@
+package io.github.msyysoft.java.utiltools.cache4j.timer;
+
+import io.github.msyysoft.java.utiltools.cache4j.node.impl.CacheNode;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分层时间轮
+ * 按到期时间的远近把节点放入不同精度的槽位（秒、分、时、天），时间推进时只处理经过的槽位，
+ * 每个节点的调度和过期均摊为O(1)，不需要全量扫描缓存。
+ * 槽位是以哨兵节点开头的环形双向链表，复用CacheNode上的时间轮指针，调度不产生额外对象。
+ * 非线程安全，调用方负责加锁。
+ * @author 杨元
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class TimerWheel<K, V> {
+
+    /**
+     * 每层槽位数量，必须为2的幂
+     */
+    private static final int[] BUCKETS = { 64, 64, 32, 4, 1 };
+
+    /**
+     * 每层单个槽位覆盖的时间跨度（纳秒，取2的幂），最后一项用于判断越界
+     */
+    private static final long[] SPANS = {
+        ceilingPowerOfTwo(TimeUnit.SECONDS.toNanos(1)),
+        ceilingPowerOfTwo(TimeUnit.MINUTES.toNanos(1)),
+        ceilingPowerOfTwo(TimeUnit.HOURS.toNanos(1)),
+        ceilingPowerOfTwo(TimeUnit.DAYS.toNanos(1)),
+        BUCKETS[3] * ceilingPowerOfTwo(TimeUnit.DAYS.toNanos(1)),
+        BUCKETS[3] * ceilingPowerOfTwo(TimeUnit.DAYS.toNanos(1)),
+    };
+
+    /**
+     * 每层时间到槽位序号的位移量
+     */
+    private static final long[] SHIFT = {
+        Long.numberOfTrailingZeros(SPANS[0]),
+        Long.numberOfTrailingZeros(SPANS[1]),
+        Long.numberOfTrailingZeros(SPANS[2]),
+        Long.numberOfTrailingZeros(SPANS[3]),
+        Long.numberOfTrailingZeros(SPANS[4]),
+    };
+
+    /**
+     * 过期处理回调
+     * @param <K>
+     * @param <V>
+     */
+    public interface IExpireHandler<K, V> {
+
+        /**
+         * 计算节点当前的实际到期时间
+         * 节点被访问后到期时间可能推后，时间轮只在槽位到期时重新计算
+         * @param node
+         * @return
+         */
+        public long expireTime(CacheNode<K, V> node);
+
+        /**
+         * 节点已过期，由缓存将其移除
+         * @param node
+         */
+        public void expire(CacheNode<K, V> node);
+
+    }
+
+    /**
+     * 槽位哨兵节点
+     */
+    private CacheNode<K, V>[][] wheel;
+
+    /**
+     * 时间轮当前时间
+     */
+    private long nanos;
+
+    /**
+     * 构造方法
+     * @param nanos  当前时间，System.nanoTime()
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimerWheel(long nanos){
+        this.nanos = nanos;
+        this.wheel = new CacheNode[BUCKETS.length][];
+        for(int i = 0; i < BUCKETS.length; i++){
+            this.wheel[i] = new CacheNode[BUCKETS[i]];
+            for(int j = 0; j < BUCKETS[i]; j++){
+                CacheNode<K, V> sentinel = new CacheNode<K, V>();
+                sentinel.setTimerPrevNode(sentinel);
+                sentinel.setTimerNextNode(sentinel);
+                this.wheel[i][j] = sentinel;
+            }
+        }
+    }
+
+    /**
+     * 按到期时间调度节点，已在时间轮中的节点会先移出
+     * @param node
+     * @param time  到期时间
+     */
+    public void schedule(CacheNode<K, V> node, long time){
+        if(node.getTimerNextNode() != null){
+            this.unlink(node);
+        }
+
+        node.setTimerTime(time);
+        CacheNode<K, V> sentinel = this.findBucket(time);
+
+        //插入槽位链表尾部
+        CacheNode<K, V> last = sentinel.getTimerPrevNode();
+        node.setTimerPrevNode(last);
+        node.setTimerNextNode(sentinel);
+        last.setTimerNextNode(node);
+        sentinel.setTimerPrevNode(node);
+    }
+
+    /**
+     * 将节点移出时间轮
+     * @param node
+     */
+    public void deschedule(CacheNode<K, V> node){
+        if(node.getTimerNextNode() != null){
+            this.unlink(node);
+        }
+    }
+
+    /**
+     * 推进时间轮，处理经过的所有槽位
+     * @param currentTime  当前时间，System.nanoTime()
+     * @param handler  过期处理回调
+     */
+    public void advance(long currentTime, IExpireHandler<K, V> handler){
+        long previousTime = this.nanos;
+        if(currentTime - previousTime <= 0){
+            return;
+        }
+        this.nanos = currentTime;
+
+        for(int i = 0; i < SHIFT.length; i++){
+            long previousTicks = previousTime >>> SHIFT[i];
+            long currentTicks = currentTime >>> SHIFT[i];
+            if(currentTicks - previousTicks <= 0L){
+                //低精度层未跨越槽位，更高层也不会跨越
+                break;
+            }
+            this.expire(i, previousTicks, currentTicks - previousTicks, handler);
+        }
+    }
+
+    /**
+     * 清空时间轮
+     */
+    public void clear(){
+        for(CacheNode<K, V>[] buckets : this.wheel){
+            for(CacheNode<K, V> sentinel : buckets){
+                CacheNode<K, V> node = sentinel.getTimerNextNode();
+                while(node != sentinel){
+                    CacheNode<K, V> next = node.getTimerNextNode();
+                    node.setTimerPrevNode(null);
+                    node.setTimerNextNode(null);
+                    node = next;
+                }
+                sentinel.setTimerPrevNode(sentinel);
+                sentinel.setTimerNextNode(sentinel);
+            }
+        }
+    }
+
+    /**
+     * 处理某一层中经过的槽位：已到期的节点交给回调移除，未到期的重新调度到更精确的槽位
+     * @param index  层序号
+     * @param previousTicks  上次推进时的槽位序号
+     * @param delta  经过的槽位数量
+     * @param handler
+     */
+    private void expire(int index, long previousTicks, long delta, IExpireHandler<K, V> handler){
+        CacheNode<K, V>[] buckets = this.wheel[index];
+        int mask = buckets.length - 1;
+
+        int steps = (int) Math.min(1 + delta, buckets.length);
+        int start = (int) (previousTicks & mask);
+        int end = start + steps;
+
+        //待处理链表的哨兵，每次调用独立，回调中再次推进时间轮也不会互相覆盖
+        CacheNode<K, V> pending = new CacheNode<K, V>();
+
+        for(int i = start; i < end; i++){
+            CacheNode<K, V> sentinel = buckets[i & mask];
+            if(sentinel.getTimerNextNode() == sentinel){
+                continue;
+            }
+
+            //整体摘下槽位链表挂到待处理链表上，重新调度的节点不会再次被本轮处理
+            pending.setTimerNextNode(sentinel.getTimerNextNode());
+            pending.setTimerPrevNode(sentinel.getTimerPrevNode());
+            pending.getTimerNextNode().setTimerPrevNode(pending);
+            pending.getTimerPrevNode().setTimerNextNode(pending);
+            sentinel.setTimerPrevNode(sentinel);
+            sentinel.setTimerNextNode(sentinel);
+
+            //每次从表头取一个节点，回调中删除或重新调度其他待处理节点时会正常移出待处理链表
+            CacheNode<K, V> node;
+            while((node = pending.getTimerNextNode()) != pending){
+                this.unlink(node);
+
+                long expireTime = handler.expireTime(node);
+                if(expireTime - this.nanos > 0){
+                    this.schedule(node, expireTime);
+                }else{
+                    handler.expire(node);
+                }
+            }
+        }
+    }
+
+    /**
+     * 根据到期时间定位槽位
+     * @param time
+     * @return 槽位哨兵
+     */
+    private CacheNode<K, V> findBucket(long time){
+        long duration = time - this.nanos;
+        int length = this.wheel.length - 1;
+        for(int i = 0; i < length; i++){
+            if(duration < SPANS[i + 1]){
+                long ticks = time >>> SHIFT[i];
+                int index = (int) (ticks & (this.wheel[i].length - 1));
+                return this.wheel[i][index];
+            }
+        }
+        return this.wheel[length][0];
+    }
+
+    /**
+     * 从槽位链表中摘除节点
+     * @param node
+     */
+    private void unlink(CacheNode<K, V> node){
+        CacheNode<K, V> prev = node.getTimerPrevNode();
+        CacheNode<K, V> next = node.getTimerNextNode();
+        prev.setTimerNextNode(next);
+        next.setTimerPrevNode(prev);
+        node.setTimerPrevNode(null);
+        node.setTimerNextNode(null);
+    }
+
+    private static long ceilingPowerOfTwo(long x){
+        return 1L << -Long.numberOfLeadingZeros(x - 1);
+    }
+
+}